@@ -49,5 +49,5 @@ dependencies {
     implementation(libs.libphonenumber)
     //implementation(libs.phonefield)
     implementation(project(":phone-field"))
-
+    testImplementation(libs.junit)
 }
\ No newline at end of file
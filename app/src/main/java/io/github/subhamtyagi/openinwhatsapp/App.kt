@@ -0,0 +1,39 @@
+package io.github.subhamtyagi.openinwhatsapp
+
+import android.Manifest
+import android.app.Application
+import android.content.pm.PackageManager
+import androidx.core.content.ContextCompat
+import com.github.ialokim.phonefield.PhoneFieldWarmup
+import io.github.subhamtyagi.openinwhatsapp.contacts.ContactDigitIndex
+import io.github.subhamtyagi.openinwhatsapp.contacts.ContactNumberIndex
+import io.github.subhamtyagi.openinwhatsapp.prefs.Prefs
+import io.github.subhamtyagi.openinwhatsapp.recent.RecentNumberStore
+
+class App : Application() {
+
+    /** Numbers imported from the address book, shared by all activities */
+    val contacts = ContactNumberIndex()
+
+    /** Numbers opened before, read in the background so the first frame does not wait for the file */
+    lateinit var recentNumbers: RecentNumberStore
+        private set
+
+    /** Address book numbers matched while typing, started once contacts may be read */
+    lateinit var contactDigits: ContactDigitIndex
+        private set
+
+    override fun onCreate() {
+        super.onCreate()
+        // Preferences are read in the background, the warmup needs the last region
+        Prefs.preload(this) { prefs -> PhoneFieldWarmup.start(this, prefs.lastRegion) }
+        recentNumbers = RecentNumberStore(this)
+        recentNumbers.load()
+        contactDigits = ContactDigitIndex(this)
+        Prefs.doOnLoaded { prefs ->
+            if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_CONTACTS) == PackageManager.PERMISSION_GRANTED) {
+                contactDigits.start(prefs.defaultRegion)
+            }
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package io.github.subhamtyagi.openinwhatsapp
 
+import android.Manifest
 import android.app.Activity
 import android.content.ActivityNotFoundException
 import android.content.ClipboardManager
 import android.content.ContentResolver
 import android.content.Context
 import android.content.Intent
+import android.content.pm.PackageManager
 import android.content.res.Configuration
 import android.database.Cursor
 import android.net.Uri
@@ -23,19 +25,34 @@ import android.widget.ImageView
 import android.widget.TextView
 import android.widget.Toast
 import androidx.appcompat.app.AppCompatActivity
+import androidx.core.app.ActivityCompat
+import androidx.core.content.ContextCompat
+import androidx.core.widget.doAfterTextChanged
 import com.github.ialokim.phonefield.PhoneInputLayout
+import com.google.android.material.chip.Chip
+import com.google.android.material.chip.ChipGroup
 import com.google.android.material.color.DynamicColors
+import com.google.android.material.snackbar.Snackbar
 
 import com.google.i18n.phonenumbers.PhoneNumberUtil
+import io.github.subhamtyagi.openinwhatsapp.contacts.ContactImporter
+import io.github.subhamtyagi.openinwhatsapp.contacts.VCardReader
 import io.github.subhamtyagi.openinwhatsapp.prefs.Prefs
+import java.io.FileDescriptor
+import java.io.PrintWriter
 import java.io.UnsupportedEncodingException
 import java.net.URISyntaxException
 import java.net.URLEncoder
+import java.util.concurrent.Executors
 
 class MainActivity : AppCompatActivity() {
 
     companion object {
         private const val PICK_CONTACT = 1
+        private const val REQUEST_READ_CONTACTS = 2
+        private const val MAX_SUGGESTIONS = 5
+
+        private val vCardExecutor = Executors.newSingleThreadExecutor()
     }
 
     private lateinit var pickBtn: Button
@@ -45,6 +62,13 @@ class MainActivity : AppCompatActivity() {
     private lateinit var shareBtn: Button
     private lateinit var mBtnLink: TextView
     private lateinit var paste: ImageView
+    private lateinit var recentNumbersScroll: View
+    private lateinit var recentNumbersGroup: ChipGroup
+    private val recentNumberChips = ArrayList<Chip>(MAX_SUGGESTIONS)
+    private val onRecentNumbersLoaded: () -> Unit = { updateSuggestions() }
+    private val onPrefsLoaded: (Prefs) -> Unit = { mPhoneInput.setDefaultCountry(it.lastRegion) }
+    private var importer: ContactImporter? = null
+    private var importProgress: Snackbar? = null
     private var number: String = ""
         set(value) {
             field = value.replace(Regex("[^+\\d]"), "")
@@ -85,6 +109,7 @@ class MainActivity : AppCompatActivity() {
 
     override fun onOptionsItemSelected(item: MenuItem): Boolean {
         when(item.itemId){
+            R.id.action_import_contacts -> importContacts()
             R.id.action_about -> startActivity(Intent(Intent.ACTION_VIEW).setData(Uri.parse("https://github.com/subhamtyagi/openinwa")))
         }
         return super.onOptionsItemSelected(item)
@@ -94,25 +119,30 @@ class MainActivity : AppCompatActivity() {
         val type = intent.type
         if ("text/x-vcard" == type) {
             isShare = true
-            val contactUri: Uri? = intent.getParcelableExtra(Intent.EXTRA_STREAM)
+            val contactUri = intent.getParcelableExtra<Uri>(Intent.EXTRA_STREAM) ?: return
             val cr: ContentResolver = contentResolver
 
-            var data = ""
-            try {
-                contactUri?.let { uri ->
-                    cr.openInputStream(uri)?.use { stream ->
-                        data = stream.bufferedReader().use { it.readText() }
+            // Large exports are read on a background thread, only up to the first mobile number
+            vCardExecutor.execute {
+                var found: VCardReader.Entry? = null
+                try {
+                    cr.openInputStream(contactUri)?.use { stream ->
+                        VCardReader(stream).use { reader ->
+                            for (entry in reader.numbers()) {
+                                if (found == null || entry.isMobile && !found!!.isMobile) found = entry
+                                if (entry.isMobile) break
+                            }
+                        }
                     }
+                } catch (e: Exception) {
+                    e.printStackTrace()
                 }
-            } catch (e: Exception) {
-                e.printStackTrace()
-            }
-
-            for (line in data.lines()) {
-                val trimmedLine = line.trim()
-                if (trimmedLine.startsWith("TEL;CELL:")) {
-                    number = trimmedLine.substring(9)
-                    mPhoneInput.setPhoneNumber(number)
+                val entry = found ?: return@execute
+                runOnUiThread {
+                    if (!isDestroyed) {
+                        number = entry.number
+                        mPhoneInput.setPhoneNumber(number)
+                    }
                 }
             }
         }
@@ -131,6 +161,8 @@ class MainActivity : AppCompatActivity() {
         shareBtn = findViewById(R.id.btn_share)
         paste = findViewById(R.id.btn_paste)
         pickBtn = findViewById(R.id.btn_pick)
+        recentNumbersScroll = findViewById(R.id.recent_numbers_scroll)
+        recentNumbersGroup = findViewById(R.id.recent_numbers)
 
         // Setup event listeners
         mBtnLink.setOnClickListener { open() }
@@ -139,7 +171,7 @@ class MainActivity : AppCompatActivity() {
         pickBtn.setOnClickListener { pick() }
 
         // Set default country and IME options
-        mPhoneInput.setDefaultCountry(Prefs(this).lastRegion)
+        Prefs.doOnLoaded(onPrefsLoaded)
 
         val currentNightMode = resources.configuration.uiMode and Configuration.UI_MODE_NIGHT_MASK
         when (currentNightMode) {
@@ -168,6 +200,42 @@ class MainActivity : AppCompatActivity() {
                 false
             }
         }
+
+        // Suggest recently opened numbers below the input, the chips are reused for every keystroke
+        for (i in 0 until MAX_SUGGESTIONS) {
+            val chip = Chip(this)
+            chip.setOnClickListener { mPhoneInput.setPhoneNumber(it.tag as String) }
+            recentNumberChips.add(chip)
+            recentNumbersGroup.addView(chip)
+        }
+        mPhoneInput.editText.doAfterTextChanged { updateSuggestions() }
+        (application as App).recentNumbers.doOnLoaded(onRecentNumbersLoaded)
+    }
+
+    private fun updateSuggestions() {
+        val app = application as App
+        val input = mPhoneInput.editText.text
+        // Recent numbers first, then the matching contacts fill the remaining chips
+        val suggestions = LinkedHashMap<String, String?>()
+        for (entry in app.recentNumbers.suggest(input, MAX_SUGGESTIONS)) suggestions[entry.e164] = app.contacts[entry.e164]?.name
+        if (suggestions.size < MAX_SUGGESTIONS) {
+            for (contact in app.contactDigits.find(input, MAX_SUGGESTIONS)) {
+                if (suggestions.size == MAX_SUGGESTIONS) break
+                if (!suggestions.containsKey(contact.e164)) suggestions[contact.e164] = contact.name
+            }
+        }
+        val numbers = suggestions.entries.toList()
+        for (i in recentNumberChips.indices) {
+            val chip = recentNumberChips[i]
+            if (i < numbers.size) {
+                chip.tag = numbers[i].key
+                chip.text = numbers[i].value ?: numbers[i].key
+                chip.visibility = View.VISIBLE
+            } else {
+                chip.visibility = View.GONE
+            }
+        }
+        recentNumbersScroll.visibility = if (suggestions.isEmpty()) View.GONE else View.VISIBLE
     }
 
     private fun setNumberFromClipBoard() {
@@ -212,6 +280,69 @@ class MainActivity : AppCompatActivity() {
         )
     }
 
+    private fun importContacts() {
+        if (importer != null) return
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_CONTACTS)
+            != PackageManager.PERMISSION_GRANTED
+        ) {
+            ActivityCompat.requestPermissions(this, arrayOf(Manifest.permission.READ_CONTACTS), REQUEST_READ_CONTACTS)
+            return
+        }
+
+        val region = Prefs.get(this).defaultRegion
+        (application as App).contactDigits.start(region)
+        val progress = Snackbar.make(findViewById(android.R.id.content), R.string.action_import_contacts, Snackbar.LENGTH_INDEFINITE)
+        progress.show()
+        importProgress = progress
+        val contactImporter = ContactImporter(this, (application as App).contacts, region)
+        importer = contactImporter
+        contactImporter.start(object : ContactImporter.Listener {
+            override fun onProgress(rows: Int, total: Int) {
+                progress.setText(getString(R.string.import_progress, rows, total))
+            }
+
+            override fun onFinished(result: ContactImporter.Result) {
+                importer = null
+                progress.setText(getString(R.string.import_finished, result.added, result.duplicates, result.invalid))
+                progress.duration = Snackbar.LENGTH_LONG
+                progress.show()
+            }
+
+            override fun onFailed(e: Exception) {
+                Log.e(MainActivity::class.java.name, "importContacts: failed", e)
+                importer = null
+                progress.dismiss()
+                Toast.makeText(this@MainActivity, R.string.import_failed, Toast.LENGTH_LONG).show()
+            }
+        })
+    }
+
+    override fun onRequestPermissionsResult(requestCode: Int, permissions: Array<out String>, grantResults: IntArray) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults)
+        if (requestCode == REQUEST_READ_CONTACTS) {
+            if (grantResults.firstOrNull() == PackageManager.PERMISSION_GRANTED) {
+                importContacts()
+            } else {
+                Toast.makeText(this, R.string.import_permission_denied, Toast.LENGTH_LONG).show()
+            }
+        }
+    }
+
+    // Printed by "adb shell dumpsys activity top", shows the typing latency on the device itself
+    override fun dump(prefix: String, fd: FileDescriptor?, writer: PrintWriter, args: Array<out String>?) {
+        super.dump(prefix, fd, writer, args)
+        if (::mPhoneInput.isInitialized) mPhoneInput.dumpLatency(writer, prefix)
+    }
+
+    override fun onDestroy() {
+        (application as App).recentNumbers.removeOnLoaded(onRecentNumbersLoaded)
+        Prefs.removeOnLoaded(onPrefsLoaded)
+        importer?.cancel()
+        importer = null
+        importProgress = null
+        super.onDestroy()
+    }
+
     private fun setNumber(): Boolean {
         hideKeyboard(mPhoneInput)
         mPhoneInput.setError(null)
@@ -222,6 +353,7 @@ class MainActivity : AppCompatActivity() {
             true
         } else {
             storeCountryCode()
+            (application as App).recentNumbers.add(number)
             true
         }
     }
@@ -231,7 +363,7 @@ class MainActivity : AppCompatActivity() {
             val phoneUtil = PhoneNumberUtil.getInstance()
             try {
                 val phoneNumber = phoneUtil.parse(mPhoneInput.phoneNumberE164, "")
-                Prefs(this).lastRegion = phoneUtil.getRegionCodeForNumber(phoneNumber)
+                Prefs.get(this).lastRegion = phoneUtil.getRegionCodeForNumber(phoneNumber)
             } catch (e: Exception) {
                 //log.e(e, "Failed to store country code. NumberParseException thrown while trying to parse ${mPhoneInput.phoneNumberE164}")
             }
@@ -0,0 +1,195 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import android.content.Context
+import android.database.ContentObserver
+import android.os.Handler
+import android.os.Looper
+import android.provider.ContactsContract
+import android.provider.ContactsContract.CommonDataKinds.Phone
+import android.provider.ContactsContract.DeletedContacts
+import android.util.Log
+import com.github.ialokim.phonefield.PhoneNumberNormalizer
+import java.util.concurrent.Executors
+
+/**
+ * Type-ahead index over the digits of all address book numbers.
+ *
+ * People type numbers in local formats, so the typed digits are matched against any part of the
+ * national number, not only its start, see [DigitSuffixIndex].
+ *
+ * The index is built on a background thread and kept current by a [ContentObserver]. After the
+ * first build only the phone rows of contacts updated since the last sync are read, through
+ * `CONTACT_LAST_UPDATED_TIMESTAMP`, and the contacts deleted since then are read from
+ * [DeletedContacts]. Only rows that are new or whose `DATA_VERSION` or name changed are normalized
+ * again, so an edit costs a small query and a linear merge instead of reading, normalizing and
+ * sorting the whole address book. Every update publishes a new immutable snapshot, lookups on the
+ * main thread never wait for a lock.
+ */
+class ContactDigitIndex(context: Context) {
+
+    companion object {
+        private val TAG = ContactDigitIndex::class.java.name
+
+        /**
+         * Shorter input matches too large a part of the address book to be useful.
+         */
+        const val MIN_QUERY_DIGITS = DigitSuffixIndex.MIN_QUERY_DIGITS
+
+        private const val REFRESH_DELAY_MS = 1000L
+
+        private val PROJECTION = arrayOf(
+            Phone._ID, Phone.CONTACT_ID, Phone.CONTACT_LAST_UPDATED_TIMESTAMP,
+            Phone.DATA_VERSION, Phone.NUMBER, Phone.DISPLAY_NAME
+        )
+
+        private val DELETED_PROJECTION = arrayOf(DeletedContacts.CONTACT_ID, DeletedContacts.CONTACT_DELETED_TIMESTAMP)
+
+        private val executor = Executors.newSingleThreadExecutor()
+    }
+
+    /**
+     * A phone row of the address book as last read, also kept when its number cannot be parsed so
+     * it is skipped until it changes.
+     */
+    private class Row(val contactId: Long, val version: Int, val raw: String, val name: String?) {
+        fun isSame(contactId: Long, version: Int, raw: String, name: String?) =
+            this.contactId == contactId && this.version == version && this.raw == raw && this.name == name
+    }
+
+    private val resolver = context.applicationContext.contentResolver
+    private lateinit var normalizer: PhoneNumberNormalizer
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    private val index = DigitSuffixIndex()
+
+    /** Every phone row read so far by its id, only accessed on [executor] */
+    private val rows = HashMap<Long, Row>()
+
+    /** Newest change seen, in the clock of the contacts provider, 0 before the first build */
+    private var lastSync = 0L
+
+    private val refresh = Runnable { executor.execute { update() } }
+
+    private val observer = object : ContentObserver(mainHandler) {
+        override fun onChange(selfChange: Boolean) {
+            //a sync touches many rows in a row, wait until it settles
+            mainHandler.removeCallbacks(refresh)
+            mainHandler.postDelayed(refresh, REFRESH_DELAY_MS)
+        }
+    }
+
+    private var started = false
+
+    /**
+     * Builds the index in the background and starts following changes of the address book. Needs
+     * the `READ_CONTACTS` permission, calling it again does nothing.
+     *
+     * @param defaultRegion the region of numbers stored without country code
+     */
+    fun start(defaultRegion: String) {
+        if (started) return
+        started = true
+        normalizer = PhoneNumberNormalizer(defaultRegion)
+        resolver.registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true, observer)
+        executor.execute { update() }
+    }
+
+    val size: Int
+        get() = index.size
+
+    /**
+     * Finds the numbers containing the typed digits.
+     *
+     * @param input the text typed so far, may contain separators and a country code
+     * @param limit the maximal number of results
+     * @return the matching numbers, those starting with the digits first
+     */
+    fun find(input: CharSequence, limit: Int): List<ContactNumber> = index.find(input, limit)
+
+    /**
+     * Reads what changed in the address book since the last sync and applies it to the index, only
+     * called on [executor].
+     */
+    private fun update() {
+        val start = System.nanoTime()
+        //the provider forgets deleted contacts after a while, then only a full read finds them
+        val full = lastSync == 0L || System.currentTimeMillis() - lastSync > DeletedContacts.DAYS_KEPT_MILLISECONDS
+        //changes in the same millisecond as the last sync may not have been read yet, they are read again
+        val since = arrayOf(lastSync.toString())
+        var newest = lastSync
+        val present = HashSet<Long>()
+        val updatedContacts = HashSet<Long>()
+        val deletedContacts = HashSet<Long>()
+        val changed = ArrayList<Pair<Long, Row>>()
+        val raws = ArrayList<String>()
+        try {
+            if (!full) {
+                resolver.query(
+                    DeletedContacts.CONTENT_URI, DELETED_PROJECTION,
+                    "${DeletedContacts.CONTACT_DELETED_TIMESTAMP} >= ?", since, null
+                )?.use {
+                    val contactColumn = it.getColumnIndexOrThrow(DeletedContacts.CONTACT_ID)
+                    val timestampColumn = it.getColumnIndexOrThrow(DeletedContacts.CONTACT_DELETED_TIMESTAMP)
+                    while (it.moveToNext()) {
+                        deletedContacts.add(it.getLong(contactColumn))
+                        newest = maxOf(newest, it.getLong(timestampColumn))
+                    }
+                }
+            }
+            resolver.query(
+                Phone.CONTENT_URI, PROJECTION,
+                if (full) null else "${Phone.CONTACT_LAST_UPDATED_TIMESTAMP} >= ?", if (full) null else since, null
+            )?.use {
+                val idColumn = it.getColumnIndexOrThrow(Phone._ID)
+                val contactColumn = it.getColumnIndexOrThrow(Phone.CONTACT_ID)
+                val timestampColumn = it.getColumnIndexOrThrow(Phone.CONTACT_LAST_UPDATED_TIMESTAMP)
+                val versionColumn = it.getColumnIndexOrThrow(Phone.DATA_VERSION)
+                val numberColumn = it.getColumnIndexOrThrow(Phone.NUMBER)
+                val nameColumn = it.getColumnIndexOrThrow(Phone.DISPLAY_NAME)
+                while (it.moveToNext()) {
+                    val rowId = it.getLong(idColumn)
+                    val contactId = it.getLong(contactColumn)
+                    val version = it.getInt(versionColumn)
+                    val name = it.getString(nameColumn)
+                    updatedContacts.add(contactId)
+                    newest = maxOf(newest, it.getLong(timestampColumn))
+                    val raw = it.getString(numberColumn) ?: continue
+                    present.add(rowId)
+                    if (rows[rowId]?.isSame(contactId, version, raw, name) == true) continue
+                    changed.add(rowId to Row(contactId, version, raw, name))
+                    raws.add(raw)
+                }
+            }
+        } catch (e: SecurityException) {
+            Log.w(TAG, "update: no permission to read the contacts")
+            return
+        }
+
+        //a full read returns every row, a partial one every row of the contacts it names
+        val removed = ArrayList<Long>()
+        for ((rowId, row) in rows) {
+            if (rowId in present) continue
+            if (full || row.contactId in updatedContacts || row.contactId in deletedContacts) removed.add(rowId)
+        }
+        for (rowId in removed) rows.remove(rowId)
+        lastSync = newest
+        if (removed.isEmpty() && changed.isEmpty()) return
+
+        val added = ArrayList<DigitSuffixIndex.Entry>(changed.size)
+        val results = if (raws.isEmpty()) emptyList() else normalizer.normalizeAll(raws).results
+        for (i in changed.indices) {
+            val (rowId, row) = changed[i]
+            rows[rowId] = row
+            //the entry of the previous version goes, whether or not the new one can be indexed
+            removed.add(rowId)
+            val e164 = results[i].e164
+            val digits = results[i].nationalNumber?.trimStart('0') ?: ""
+            if (e164 == null || digits.isEmpty() || digits.length > DigitSuffixIndex.MAX_DIGITS) continue
+            added.add(DigitSuffixIndex.Entry(rowId, digits, ContactNumber(e164, row.name, results[i].regionCode)))
+        }
+
+        index.update(removed, added)
+        Log.d(TAG, "update: ${if (full) "full" else "partial"} read of ${present.size} rows, " +
+                "${added.size} added in ${(System.nanoTime() - start) / 1000000} ms")
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import android.provider.ContactsContract
+import android.provider.ContactsContract.CommonDataKinds.Phone
+import com.github.ialokim.phonefield.PhoneNumberNormalizer
+import java.util.concurrent.Executors
+
+/**
+ * Imports every phone number of the address book into a [ContactNumberIndex].
+ *
+ * The rows are read in pages of [PAGE_SIZE] on a background thread, so memory depends on the page
+ * size and not on the number of contacts, and each page is normalized by [PhoneNumberNormalizer]
+ * before the next one is read. Progress and the result are reported on the main thread.
+ */
+class ContactImporter(context: Context, private val index: ContactNumberIndex, defaultRegion: String) {
+
+    companion object {
+        private const val PAGE_SIZE = 500
+
+        private val PROJECTION = arrayOf(Phone._ID, Phone.NUMBER, Phone.DISPLAY_NAME)
+
+        private val executor = Executors.newSingleThreadExecutor()
+    }
+
+    interface Listener {
+        fun onProgress(rows: Int, total: Int)
+        fun onFinished(result: Result)
+        fun onFailed(e: Exception)
+    }
+
+    data class Result(val rows: Int, val added: Int, val duplicates: Int, val invalid: Int, val elapsedMillis: Long)
+
+    private val resolver = context.applicationContext.contentResolver
+    private val normalizer = PhoneNumberNormalizer(defaultRegion)
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    @Volatile
+    private var cancelled = false
+
+    fun start(listener: Listener) {
+        executor.execute { importAll(listener) }
+    }
+
+    /**
+     * Stops the import after the current page, the listener is not called anymore.
+     */
+    fun cancel() {
+        cancelled = true
+    }
+
+    private fun importAll(listener: Listener) {
+        val start = SystemClock.elapsedRealtime()
+        var rows = 0
+        var added = 0
+        var duplicates = 0
+        var invalid = 0
+        try {
+            val total = countRows()
+            val numbers = ArrayList<String>(PAGE_SIZE)
+            val names = ArrayList<String?>(PAGE_SIZE)
+            var lastId = 0L
+            while (!cancelled) {
+                numbers.clear()
+                names.clear()
+                lastId = readPage(lastId, numbers, names)
+                if (numbers.isEmpty()) break
+
+                val results = normalizer.normalizeAll(numbers).results
+                for (i in results.indices) {
+                    val result = results[i]
+                    val e164 = result.e164
+                    when {
+                        e164 == null || !result.isValid -> invalid++
+                        index.add(ContactNumber(e164, names[i], result.regionCode)) -> added++
+                        else -> duplicates++
+                    }
+                }
+                rows += numbers.size
+                val processed = rows
+                post { listener.onProgress(processed, maxOf(total, processed)) }
+                if (numbers.size < PAGE_SIZE) break
+            }
+            val result = Result(rows, added, duplicates, invalid, SystemClock.elapsedRealtime() - start)
+            post { listener.onFinished(result) }
+        } catch (e: Exception) {
+            post { listener.onFailed(e) }
+        }
+    }
+
+    private fun countRows(): Int {
+        return resolver.query(Phone.CONTENT_URI, arrayOf(Phone._ID), null, null, null)?.use { it.count } ?: 0
+    }
+
+    /**
+     * Reads the rows following [afterId] in the order of their ids.
+     *
+     * @return the id of the last row read
+     */
+    private fun readPage(afterId: Long, numbers: MutableList<String>, names: MutableList<String?>): Long {
+        val uri = Phone.CONTENT_URI.buildUpon()
+            .appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY, PAGE_SIZE.toString())
+            .build()
+        var lastId = afterId
+        resolver.query(uri, PROJECTION, "${Phone._ID} > ?", arrayOf(afterId.toString()), "${Phone._ID} ASC")?.use {
+            val idColumn = it.getColumnIndexOrThrow(Phone._ID)
+            val numberColumn = it.getColumnIndexOrThrow(Phone.NUMBER)
+            val nameColumn = it.getColumnIndexOrThrow(Phone.DISPLAY_NAME)
+            while (it.moveToNext()) {
+                lastId = it.getLong(idColumn)
+                numbers.add(it.getString(numberColumn) ?: "")
+                names.add(it.getString(nameColumn))
+            }
+        }
+        return lastId
+    }
+
+    private fun post(action: () -> Unit) {
+        mainHandler.post {
+            if (!cancelled) action()
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+/**
+ * A phone number of a contact, normalized to E.164.
+ */
+data class ContactNumber(val e164: String, val name: String?, val regionCode: String?)
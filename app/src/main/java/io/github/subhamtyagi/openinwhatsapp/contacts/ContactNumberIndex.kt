@@ -0,0 +1,32 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+/**
+ * In-memory set of contact numbers, deduplicated by their E.164 form.
+ *
+ * It is filled from a background thread while the UI reads it, so every access is synchronized.
+ */
+class ContactNumberIndex {
+
+    private val byE164 = LinkedHashMap<String, ContactNumber>()
+
+    val size: Int
+        @Synchronized get() = byE164.size
+
+    /**
+     * Adds a number unless another contact with the same E.164 number was added before.
+     *
+     * @return whether the number was added
+     */
+    @Synchronized
+    fun add(number: ContactNumber): Boolean {
+        if (byE164.containsKey(number.e164)) return false
+        byE164[number.e164] = number
+        return true
+    }
+
+    @Synchronized
+    operator fun get(e164: String): ContactNumber? = byE164[e164]
+
+    @Synchronized
+    fun snapshot(): List<ContactNumber> = ArrayList(byE164.values)
+}
@@ -0,0 +1,203 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil
+
+/**
+ * Suffix array over the national numbers of [ContactNumber]s, matching typed digits against any
+ * part of a number.
+ *
+ * Every suffix of every national number is encoded as `slot shl 5 or offset` in an [IntArray]
+ * sorted by the digits it points to, so a lookup is a binary search followed by a scan over the
+ * matches. Changes are merged into the array and published as a new immutable [Snapshot], so
+ * [find] never waits for a lock. Only one thread may call [update].
+ */
+internal class DigitSuffixIndex {
+
+    companion object {
+        /**
+         * Shorter input matches too large a part of the address book to be useful.
+         */
+        const val MIN_QUERY_DIGITS = 3
+
+        /**
+         * Numbers collected at most per lookup, keeps short queries within the frame budget. Only
+         * numbers that pass the country code filter count.
+         */
+        const val MAX_MATCHES = 512
+
+        private const val OFFSET_BITS = 5
+        private const val OFFSET_MASK = (1 shl OFFSET_BITS) - 1
+
+        /**
+         * Digits of the longest national number that can be indexed.
+         */
+        const val MAX_DIGITS = OFFSET_MASK + 1
+    }
+
+    /**
+     * A number in the index.
+     *
+     * @property key identifies the entry for [update], e.g. the row of the address book
+     * @property digits the national significant number without leading zeros
+     */
+    class Entry(val key: Long, val digits: String, val number: ContactNumber)
+
+    private class Snapshot(val entries: Array<Entry?>, val suffixes: IntArray)
+
+    @Volatile
+    private var snapshot = Snapshot(emptyArray(), IntArray(0))
+
+    /** Slot of every key in [snapshot], only accessed by the updating thread */
+    private val slotsByKey = HashMap<Long, Int>()
+
+    val size: Int
+        get() = snapshot.entries.count { it != null }
+
+    /**
+     * Finds the numbers containing the typed digits.
+     *
+     * @param input the text typed so far, may contain separators and a country code
+     * @param limit the maximal number of results
+     * @return the matching numbers, those starting with the digits first
+     */
+    fun find(input: CharSequence, limit: Int): List<ContactNumber> {
+        var digits = StringBuilder(input.length)
+        for (c in input) if (c in '0'..'9') digits.append(c)
+        var countryCode: String? = null
+        val trimmed = input.trimStart()
+        if (trimmed.startsWith("+") || trimmed.startsWith("00")) {
+            if (trimmed.startsWith("00")) digits.delete(0, 2)
+            countryCode = extractCountryCode(digits) ?: return emptyList()
+            digits = StringBuilder(digits.substring(countryCode.length))
+        }
+        while (digits.isNotEmpty() && digits[0] == '0') digits.deleteCharAt(0)
+        if (digits.length < MIN_QUERY_DIGITS) return emptyList()
+
+        val current = snapshot
+        val query = digits.toString()
+        val prefix = countryCode?.let { "+$it" }
+        val matches = LinkedHashMap<Entry, Int>()
+        var i = lowerBound(current, query)
+        //numbers of other countries are skipped before they are counted, so they cannot crowd out matches
+        while (i < current.suffixes.size && matches.size < MAX_MATCHES && startsWith(current, current.suffixes[i], query)) {
+            val entry = current.entries[current.suffixes[i] ushr OFFSET_BITS]!!
+            val offset = current.suffixes[i] and OFFSET_MASK
+            if (prefix == null || entry.number.e164.startsWith(prefix)) {
+                val previous = matches[entry]
+                if (previous == null || offset < previous) matches[entry] = offset
+            }
+            i++
+        }
+
+        val seen = HashSet<String>()
+        return matches.entries
+            .sortedWith(compareBy<Map.Entry<Entry, Int>>({ it.value }, { it.key.digits.length }))
+            .map { it.key.number }
+            .filter { seen.add(it.e164) }
+            .take(limit)
+    }
+
+    /**
+     * Removes and adds entries. The suffixes of the added entries are sorted and merged into the
+     * array, so a change costs a linear merge instead of sorting the whole index.
+     *
+     * @param removed the keys of the entries to remove, unknown keys are ignored
+     * @param added   the entries to add, an entry whose key is also removed replaces it
+     */
+    fun update(removed: Collection<Long>, added: List<Entry>) {
+        val current = snapshot
+        val entries = ArrayList<Entry?>(current.entries.asList())
+        val removedSlots = HashSet<Int>()
+        for (key in removed) {
+            val index = slotsByKey.remove(key) ?: continue
+            entries[index] = null
+            removedSlots.add(index)
+        }
+        if (removedSlots.isEmpty() && added.isEmpty()) return
+
+        //free slots are reused, so the array only grows with the address book
+        val free = ArrayDeque<Int>()
+        for (index in entries.indices) if (entries[index] == null) free.add(index)
+
+        val newSuffixes = ArrayList<Int>()
+        for (entry in added) {
+            require(entry.digits.length <= MAX_DIGITS) { "too many digits: ${entry.digits}" }
+            val index = free.removeFirstOrNull() ?: entries.size.also { entries.add(null) }
+            entries[index] = entry
+            slotsByKey[entry.key] = index
+            for (offset in entry.digits.indices) newSuffixes.add(index shl OFFSET_BITS or offset)
+        }
+        val next = Snapshot(entries.toTypedArray(), IntArray(0))
+        newSuffixes.sortWith(Comparator { a, b -> compare(next, a, b) })
+
+        //merge the kept suffixes with the new ones, both are sorted
+        val kept = current.suffixes
+        val suffixes = IntArray(kept.size + newSuffixes.size)
+        var size = 0
+        var j = 0
+        for (suffix in kept) {
+            if ((suffix ushr OFFSET_BITS) in removedSlots) continue
+            while (j < newSuffixes.size && compare(next, newSuffixes[j], suffix) < 0) suffixes[size++] = newSuffixes[j++]
+            suffixes[size++] = suffix
+        }
+        while (j < newSuffixes.size) suffixes[size++] = newSuffixes[j++]
+
+        snapshot = Snapshot(next.entries, suffixes.copyOf(size))
+    }
+
+    private fun compare(snapshot: Snapshot, a: Int, b: Int): Int {
+        val digitsA = snapshot.entries[a ushr OFFSET_BITS]!!.digits
+        val digitsB = snapshot.entries[b ushr OFFSET_BITS]!!.digits
+        var i = a and OFFSET_MASK
+        var j = b and OFFSET_MASK
+        while (i < digitsA.length && j < digitsB.length) {
+            val difference = digitsA[i] - digitsB[j]
+            if (difference != 0) return difference
+            i++
+            j++
+        }
+        return (digitsA.length - i) - (digitsB.length - j)
+    }
+
+    private fun lowerBound(snapshot: Snapshot, query: String): Int {
+        var low = 0
+        var high = snapshot.suffixes.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (compareToQuery(snapshot, snapshot.suffixes[middle], query) < 0) low = middle + 1 else high = middle
+        }
+        return low
+    }
+
+    private fun compareToQuery(snapshot: Snapshot, suffix: Int, query: String): Int {
+        val digits = snapshot.entries[suffix ushr OFFSET_BITS]!!.digits
+        var i = suffix and OFFSET_MASK
+        var j = 0
+        while (i < digits.length && j < query.length) {
+            val difference = digits[i] - query[j]
+            if (difference != 0) return difference
+            i++
+            j++
+        }
+        return (digits.length - i) - (query.length - j)
+    }
+
+    private fun startsWith(snapshot: Snapshot, suffix: Int, query: String): Boolean {
+        val digits = snapshot.entries[suffix ushr OFFSET_BITS]!!.digits
+        val offset = suffix and OFFSET_MASK
+        return digits.regionMatches(offset, query, 0, query.length)
+    }
+
+    /**
+     * Finds the country calling code at the start of international digits, which are one to three
+     * digits long and prefix free.
+     */
+    private fun extractCountryCode(digits: CharSequence): String? {
+        val util = PhoneNumberUtil.getInstance()
+        for (length in 1..minOf(3, digits.length)) {
+            val code = digits.substring(0, length)
+            if (util.getRegionCodeForCountryCode(code.toInt()) != "ZZ") return code
+        }
+        return null
+    }
+}
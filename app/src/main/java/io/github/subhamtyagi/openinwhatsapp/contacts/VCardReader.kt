@@ -0,0 +1,206 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import java.io.BufferedReader
+import java.io.Closeable
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.util.Locale
+
+/**
+ * Streaming reader for the phone numbers of vCard 2.1, 3.0 and 4.0 files.
+ *
+ * The input is read one character at a time, folded lines and quoted-printable soft line breaks are
+ * joined on the fly and the values of properties other than `TEL`, `FN` and the card delimiters are
+ * skipped without being buffered, so memory stays constant no matter how many contacts or embedded
+ * photos the file contains. Numbers are emitted card by card by [numbers].
+ */
+class VCardReader(input: InputStream) : Closeable {
+
+    companion object {
+        /**
+         * Longest property name with parameters or value that is kept, anything longer is cut.
+         */
+        private const val MAX_LENGTH = 1024
+
+        private const val END_OF_STREAM = -1
+        private const val END_OF_LINE = -2
+        private const val NONE = -3
+    }
+
+    /**
+     * A number of a card.
+     *
+     * @property types the upper case `TYPE` parameters, e.g. `CELL` or `HOME`
+     * @property name the formatted name of the card, if it has one
+     */
+    data class Entry(val number: String, val types: Set<String>, val name: String?) {
+        val isMobile: Boolean
+            get() = "CELL" in types
+    }
+
+    private val reader = BufferedReader(InputStreamReader(input, Charsets.UTF_8))
+    private var peeked = NONE
+    private var quotedPrintable = false
+    private val head = StringBuilder()
+    private val value = StringBuilder()
+    private val types = LinkedHashSet<String>()
+
+    /**
+     * Reads the numbers lazily, the stream is only read as far as the sequence is iterated.
+     */
+    fun numbers(): Sequence<Entry> = sequence {
+        var name: String? = null
+        val card = ArrayList<Entry>()
+        while (readProperty()) {
+            when (propertyName()) {
+                "BEGIN" -> {
+                    name = null
+                    card.clear()
+                }
+                "FN" -> name = value.toString().trim().ifEmpty { null }
+                "TEL" -> {
+                    val number = telephoneNumber()
+                    if (number.isNotEmpty()) card.add(Entry(number, parseTypes(), name))
+                }
+                "END" -> {
+                    //FN may follow the numbers, so they are only emitted once the card is complete
+                    for (number in card) yield(if (number.name == null) number.copy(name = name) else number)
+                    card.clear()
+                }
+            }
+        }
+        //a truncated file still yields the numbers read so far
+        for (number in card) yield(if (number.name == null) number.copy(name = name) else number)
+    }
+
+    override fun close() {
+        reader.close()
+    }
+
+    /**
+     * Reads the next property whose value is of interest into [head] and [value].
+     *
+     * @return false at the end of the stream
+     */
+    private fun readProperty(): Boolean {
+        while (true) {
+            head.setLength(0)
+            value.setLength(0)
+            quotedPrintable = false
+
+            var c = nextChar()
+            if (c == END_OF_STREAM) return false
+            var inQuotes = false
+            while (c >= 0 && (inQuotes || c != ':'.code)) {
+                if (c == '"'.code) inQuotes = !inQuotes
+                if (head.length < MAX_LENGTH) head.append(c.toChar())
+                c = nextChar()
+            }
+            if (c == END_OF_STREAM) return false
+            if (c == END_OF_LINE) continue //blank or malformed line
+
+            quotedPrintable = head.contains("QUOTED-PRINTABLE", ignoreCase = true)
+            val capture = when (propertyName()) {
+                "BEGIN", "END", "FN", "TEL" -> true
+                else -> false
+            }
+            c = nextChar()
+            while (c >= 0) {
+                if (capture && value.length < MAX_LENGTH) value.append(c.toChar())
+                c = nextChar()
+            }
+            if (capture) return true
+            if (c == END_OF_STREAM) return false
+        }
+    }
+
+    /**
+     * Gets the name of the property in [head] without its group, e.g. `TEL` for `item1.TEL;TYPE=CELL`.
+     */
+    private fun propertyName(): String {
+        var end = head.indexOf(';')
+        if (end == -1) end = head.length
+        val start = head.lastIndexOf(".", end) + 1
+        return head.substring(start, end).trim().uppercase(Locale.ROOT)
+    }
+
+    /**
+     * Collects the types of the property in [head], both the `TYPE=CELL,VOICE` form of vCard 3.0 and
+     * 4.0 and the bare `CELL` parameters of vCard 2.1.
+     */
+    private fun parseTypes(): Set<String> {
+        types.clear()
+        for (parameter in head.split(';').drop(1)) {
+            val separator = parameter.indexOf('=')
+            if (separator == -1) {
+                types.add(parameter.trim().uppercase(Locale.ROOT))
+            } else if (parameter.substring(0, separator).trim().equals("TYPE", ignoreCase = true)) {
+                for (type in parameter.substring(separator + 1).split(','))
+                    types.add(type.trim().trim('"').uppercase(Locale.ROOT))
+            }
+        }
+        types.remove("")
+        return if (types.isEmpty()) emptySet() else LinkedHashSet(types)
+    }
+
+    /**
+     * Gets the number in [value], vCard 4.0 may store it as a `tel:` URI with parameters.
+     */
+    private fun telephoneNumber(): String {
+        var number = value.toString().trim()
+        if (number.startsWith("tel:", ignoreCase = true)) {
+            number = number.substring(4)
+            val parameters = number.indexOf(';')
+            if (parameters != -1) number = number.substring(0, parameters)
+        }
+        return number.trim()
+    }
+
+    /**
+     * Reads the next character of the current logical line.
+     *
+     * @return the character, [END_OF_LINE] or [END_OF_STREAM]
+     */
+    private fun nextChar(): Int {
+        while (true) {
+            val c = read()
+            when {
+                c == '\r'.code || c == '\n'.code -> {
+                    if (c == '\r'.code && peek() == '\n'.code) read()
+                    //folded lines continue with a space or tab
+                    val next = peek()
+                    if (next == ' '.code || next == '\t'.code) {
+                        read()
+                        continue
+                    }
+                    return END_OF_LINE
+                }
+                c == '='.code && quotedPrintable -> {
+                    //soft line break of quoted-printable values in vCard 2.1
+                    val next = peek()
+                    if (next == '\r'.code || next == '\n'.code) {
+                        read()
+                        if (next == '\r'.code && peek() == '\n'.code) read()
+                        continue
+                    }
+                    return c
+                }
+                else -> return c
+            }
+        }
+    }
+
+    private fun read(): Int {
+        if (peeked != NONE) {
+            val c = peeked
+            peeked = NONE
+            return c
+        }
+        return reader.read()
+    }
+
+    private fun peek(): Int {
+        if (peeked == NONE) peeked = reader.read()
+        return peeked
+    }
+}
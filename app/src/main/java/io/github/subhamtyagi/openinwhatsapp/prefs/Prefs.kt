@@ -2,10 +2,66 @@ package io.github.subhamtyagi.openinwhatsapp.prefs
 
 import android.content.Context
 import android.content.SharedPreferences
+import android.os.Handler
+import android.os.Looper
 import androidx.preference.PreferenceManager
 import io.github.subhamtyagi.openinwhatsapp.R
+import java.util.Locale
+import kotlin.concurrent.thread
 
-class Prefs(private val context: Context) {
+class Prefs private constructor(context: Context) {
+
+    companion object {
+        @Volatile
+        private var instance: Prefs? = null
+
+        /* Only accessed on the main thread */
+        private val loadedListeners = ArrayList<(Prefs) -> Unit>()
+
+        /**
+         * Reads the preferences file on a background thread, so the first read on the main thread
+         * does not wait for the disk. Call it once from Application.onCreate().
+         *
+         * @param onLoaded runs on the background thread once the values can be read
+         */
+        fun preload(context: Context, onLoaded: (Prefs) -> Unit = {}) {
+            val appContext = context.applicationContext
+            thread(name = "Prefs") {
+                val prefs = get(appContext)
+                onLoaded(prefs)
+                Handler(Looper.getMainLooper()).post {
+                    for (listener in ArrayList(loadedListeners)) listener(prefs)
+                    loadedListeners.clear()
+                }
+            }
+        }
+
+        /**
+         * Gets the shared instance. If it was not preloaded yet, the file is read on the calling thread.
+         */
+        fun get(context: Context): Prefs {
+            instance?.let { return it }
+            synchronized(this) {
+                return instance ?: Prefs(context.applicationContext).also {
+                    // SharedPreferences loads asynchronously, the first read waits until it is done
+                    it.lastRegion
+                    instance = it
+                }
+            }
+        }
+
+        /**
+         * Runs an action on the main thread once the preferences are loaded, right away if they are.
+         */
+        fun doOnLoaded(action: (Prefs) -> Unit) {
+            val prefs = instance
+            if (prefs != null) action(prefs) else loadedListeners.add(action)
+        }
+
+        fun removeOnLoaded(action: (Prefs) -> Unit) {
+            loadedListeners.remove(action)
+        }
+    }
 
     val prefs: SharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
 
@@ -16,6 +72,10 @@ class Prefs(private val context: Context) {
         get() = prefs.getString(LAST_REGION, "") ?: ""
         set(value) = setPreference(LAST_REGION, value)
 
+    /** The last used region or the one of the device locale */
+    val defaultRegion: String
+        get() = lastRegion.ifEmpty { Locale.getDefault().country }
+
     private fun setPreference(key: String, value: String) {
         prefs.edit().putString(key, value).apply()
     }
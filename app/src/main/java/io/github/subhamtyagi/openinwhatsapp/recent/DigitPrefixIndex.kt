@@ -0,0 +1,60 @@
+package io.github.subhamtyagi.openinwhatsapp.recent
+
+/**
+ * Sorted keys that map a digit string to a number, answering prefix queries with a binary search.
+ *
+ * A number is usually indexed twice, by its E.164 digits and by its national significant number,
+ * so the keys are tagged with [INTERNATIONAL] or [NATIONAL] to keep the two apart.
+ */
+internal class DigitPrefixIndex {
+
+    companion object {
+        const val INTERNATIONAL = '+'
+        const val NATIONAL = 'n'
+    }
+
+    private class Key(val digits: String, val e164: String)
+
+    private val keys = ArrayList<Key>()
+
+    fun clear() {
+        keys.clear()
+    }
+
+    fun add(tag: Char, digits: String, e164: String) {
+        if (digits.isEmpty()) return
+        val key = tag + digits
+        val position = lowerBound(key)
+        //the same number may be added again, e.g. when its national number equals another's digits
+        var i = position
+        while (i < keys.size && keys[i].digits == key) {
+            if (keys[i].e164 == e164) return
+            i++
+        }
+        keys.add(position, Key(key, e164))
+    }
+
+    /**
+     * Collects the numbers that have a key starting with the given digits.
+     *
+     * @param into receives the E.164 numbers, each at most once if it is a set
+     */
+    fun collect(tag: Char, prefix: String, into: MutableCollection<String>) {
+        val key = tag + prefix
+        var i = lowerBound(key)
+        while (i < keys.size && keys[i].digits.startsWith(key)) {
+            into.add(keys[i].e164)
+            i++
+        }
+    }
+
+    private fun lowerBound(key: String): Int {
+        var low = 0
+        var high = keys.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (keys[middle].digits < key) low = middle + 1 else high = middle
+        }
+        return low
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.subhamtyagi.openinwhatsapp.recent
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
+import com.google.i18n.phonenumbers.PhoneNumberUtil
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.Executors
+
+/**
+ * Numbers that were opened recently, kept in an append-only file.
+ *
+ * Every use of a number appends one record to the file instead of rewriting it. Once the file holds
+ * more than twice as many records as there are numbers, it is compacted into one record per number,
+ * dropping the least recent ones beyond [MAX_NUMBERS]. A record cut short by the process being
+ * killed mid-write is dropped on the next load and fixed by the following compaction.
+ *
+ * The file is read with [load] on a background thread, [doOnLoaded] tells when it is done. Until
+ * then [suggest] only knows the numbers used since the start of the process.
+ */
+class RecentNumberStore(context: Context) {
+
+    companion object {
+        private val TAG = RecentNumberStore::class.java.name
+
+        private const val FILE_NAME = "recent_numbers"
+
+        private const val MAX_NUMBERS = 200
+
+        /**
+         * Records tolerated on top of one per number before the file is compacted.
+         */
+        private const val COMPACT_SLACK = 32
+
+        private val executor = Executors.newSingleThreadExecutor()
+    }
+
+    /**
+     * @property national the national significant number, used to match input without country code
+     * @property lastUsed the time of the last use in milliseconds since the epoch
+     */
+    data class Entry(val e164: String, val national: String, val lastUsed: Long)
+
+    private val appContext = context.applicationContext
+
+    /** Resolved on [executor], looking up the files directory touches the disk */
+    private val file by lazy { File(appContext.filesDir, FILE_NAME) }
+
+    private val entries = HashMap<String, Entry>()
+    private val index = DigitPrefixIndex()
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    /** Records in the file, only accessed on [executor] */
+    private var records = 0
+
+    /** Whether [load] finished, only accessed on the main thread */
+    private var loaded = false
+    private val loadedListeners = ArrayList<() -> Unit>()
+
+    /**
+     * Reads the file in the background.
+     */
+    fun load() {
+        executor.execute {
+            val stored = HashMap<String, Entry>()
+            var complete = true
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    while (input.available() > 0) {
+                        val entry = try {
+                            readEntry(input)
+                        } catch (e: EOFException) {
+                            //a record cut short
+                            complete = false
+                            break
+                        }
+                        records++
+                        merge(stored, entry)
+                    }
+                }
+            } catch (e: FileNotFoundException) {
+                //nothing was stored yet
+            } catch (e: IOException) {
+                Log.e(TAG, "load: failed to read ${file.name}", e)
+                complete = false
+            }
+
+            synchronized(this) {
+                //numbers used while loading are not in the file yet, their records are queued
+                for (entry in entries.values) merge(stored, entry)
+                entries.clear()
+                entries.putAll(stored)
+                rebuildIndex()
+            }
+            if (!complete || needsCompaction()) compact()
+            mainHandler.post {
+                loaded = true
+                for (listener in ArrayList(loadedListeners)) listener()
+                loadedListeners.clear()
+            }
+        }
+    }
+
+    /**
+     * Runs an action on the main thread once the file was read, right away if it was already.
+     */
+    fun doOnLoaded(action: () -> Unit) {
+        if (loaded) action() else loadedListeners.add(action)
+    }
+
+    fun removeOnLoaded(action: () -> Unit) {
+        loadedListeners.remove(action)
+    }
+
+    /**
+     * Records a use of a number.
+     *
+     * @param e164 the number in E.164 format
+     */
+    fun add(e164: String) {
+        val national = nationalNumber(e164) ?: return
+        val entry = Entry(e164, national, System.currentTimeMillis())
+        synchronized(this) {
+            if (!entries.containsKey(e164)) {
+                index.add(DigitPrefixIndex.INTERNATIONAL, e164.substring(1), e164)
+                index.add(DigitPrefixIndex.NATIONAL, national, e164)
+            }
+            merge(entries, entry)
+        }
+        executor.execute {
+            try {
+                DataOutputStream(BufferedOutputStream(FileOutputStream(file, true))).use { writeEntry(it, entry) }
+                records++
+            } catch (e: IOException) {
+                Log.e(TAG, "add: failed to append to ${file.name}", e)
+            }
+            if (needsCompaction()) compact()
+        }
+    }
+
+    /**
+     * Gets the most recent numbers matching the input.
+     *
+     * @param input the text typed so far, may contain separators
+     * @param limit the maximal number of suggestions
+     * @return the matching numbers, most recent first
+     */
+    @Synchronized
+    fun suggest(input: CharSequence, limit: Int): List<Entry> {
+        val digits = StringBuilder(input.length)
+        for (c in input) if (c in '0'..'9') digits.append(c)
+
+        val matches: Collection<Entry>
+        if (digits.isEmpty()) {
+            matches = entries.values
+        } else {
+            val numbers = LinkedHashSet<String>()
+            if (input.trimStart().startsWith("+")) {
+                index.collect(DigitPrefixIndex.INTERNATIONAL, digits.toString(), numbers)
+            } else if (digits.startsWith("00")) {
+                index.collect(DigitPrefixIndex.INTERNATIONAL, digits.substring(2), numbers)
+            } else {
+                //national input usually starts with a trunk prefix, which the national number lacks
+                index.collect(DigitPrefixIndex.NATIONAL, digits.trimStart('0').toString(), numbers)
+                index.collect(DigitPrefixIndex.INTERNATIONAL, digits.toString(), numbers)
+            }
+            matches = numbers.mapNotNull { entries[it] }
+        }
+        return matches.sortedByDescending { it.lastUsed }.take(limit)
+    }
+
+    private fun merge(into: MutableMap<String, Entry>, entry: Entry) {
+        //replaying a record twice is harmless, only the latest use is kept
+        val existing = into[entry.e164]
+        if (existing == null || existing.lastUsed < entry.lastUsed) into[entry.e164] = entry
+    }
+
+    private fun rebuildIndex() {
+        index.clear()
+        for (entry in entries.values) {
+            index.add(DigitPrefixIndex.INTERNATIONAL, entry.e164.substring(1), entry.e164)
+            index.add(DigitPrefixIndex.NATIONAL, entry.national, entry.e164)
+        }
+    }
+
+    @Synchronized
+    private fun needsCompaction(): Boolean =
+        records > entries.size * 2 + COMPACT_SLACK || entries.size > MAX_NUMBERS
+
+    /**
+     * Rewrites the file with one record per number, only called on [executor].
+     */
+    private fun compact() {
+        val snapshot: List<Entry>
+        synchronized(this) {
+            if (entries.size > MAX_NUMBERS) {
+                val evicted = entries.values.sortedByDescending { it.lastUsed }.drop(MAX_NUMBERS)
+                for (entry in evicted) entries.remove(entry.e164)
+                rebuildIndex()
+            }
+            snapshot = ArrayList(entries.values)
+        }
+
+        val temp = File(file.path + ".tmp")
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { output ->
+                for (entry in snapshot) writeEntry(output, entry)
+            }
+            if (!temp.renameTo(file)) throw IOException("cannot replace ${file.name}")
+            records = snapshot.size
+        } catch (e: IOException) {
+            Log.e(TAG, "compact: failed to rewrite ${file.name}", e)
+            temp.delete()
+        }
+    }
+
+    private fun writeEntry(output: DataOutputStream, entry: Entry) {
+        output.writeUTF(entry.e164)
+        output.writeUTF(entry.national)
+        output.writeLong(entry.lastUsed)
+    }
+
+    private fun readEntry(input: DataInputStream): Entry =
+        Entry(input.readUTF(), input.readUTF(), input.readLong())
+
+    private fun nationalNumber(e164: String): String? {
+        if (!e164.startsWith("+")) return null
+        return try {
+            PhoneNumberUtil.getInstance().getNationalSignificantNumber(PhoneNumberUtil.getInstance().parse(e164, ""))
+        } catch (e: Exception) {
+            null
+        }
+    }
+}
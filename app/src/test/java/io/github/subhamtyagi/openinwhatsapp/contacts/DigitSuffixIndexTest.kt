@@ -0,0 +1,168 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Random
+
+/**
+ * Checks the matches of a [DigitSuffixIndex] against a scan over a synthetic address book of
+ * [CONTACTS] numbers, and that looking up what is typed stays within a millisecond per keystroke.
+ */
+class DigitSuffixIndexTest {
+
+    companion object {
+        private const val SEED = 0x5048_4f4e_45L
+
+        private const val CONTACTS = 50_000
+
+        private const val QUERIES = 500
+
+        /**
+         * Country codes of the synthetic numbers, most of the address book is local.
+         */
+        private val COUNTRY_CODES = arrayOf("49", "49", "49", "1", "44", "91")
+
+        private const val WARMUP_ROUNDS = 5
+
+        private const val MEASURED_ROUNDS = 5
+
+        private const val MAX_KEYSTROKE_NANOS = 1_000_000L
+    }
+
+    private val random = Random(SEED)
+
+    private lateinit var index: DigitSuffixIndex
+
+    private lateinit var entries: List<DigitSuffixIndex.Entry>
+
+    private lateinit var byE164: Map<String, DigitSuffixIndex.Entry>
+
+    @Before
+    fun setUp() {
+        val e164s = HashSet<String>()
+        val list = ArrayList<DigitSuffixIndex.Entry>(CONTACTS)
+        while (list.size < CONTACTS) {
+            val countryCode = COUNTRY_CODES[random.nextInt(COUNTRY_CODES.size)]
+            val digits = randomDigits(10 + random.nextInt(2))
+            if (!e164s.add("+$countryCode$digits")) continue
+            list.add(entry(list.size.toLong(), countryCode, digits))
+        }
+        entries = list
+        byE164 = list.associateBy { it.number.e164 }
+        index = DigitSuffixIndex()
+        index.update(emptyList(), entries)
+    }
+
+    @Test
+    fun findsEveryNumberContainingTheDigits() {
+        assertEquals(CONTACTS, index.size)
+        repeat(QUERIES) {
+            val digits = entries[random.nextInt(entries.size)].digits
+            val length = 5 + random.nextInt(4)
+            var offset = random.nextInt(digits.length - length + 1)
+            //leading zeros of the input are taken for a trunk prefix and dropped
+            while (digits[offset] == '0') offset--
+            val query = digits.substring(offset, offset + length)
+
+            val expected = entries.filter { it.digits.contains(query) }
+            val found = index.find(query, Int.MAX_VALUE)
+            assertEquals(query, expected.map { it.number.e164 }.toSet(), found.map { it.e164 }.toSet())
+            //numbers starting with the digits come first
+            val prefixes = expected.count { it.digits.startsWith(query) }
+            for (i in found.indices) {
+                assertEquals("$query at $i", i < prefixes, byE164[found[i].e164]!!.digits.startsWith(query))
+            }
+        }
+    }
+
+    @Test
+    fun findsNumbersOfTheTypedCountryCode() {
+        repeat(QUERIES) {
+            val entry = entries[random.nextInt(entries.size)]
+            val countryCode = entry.number.e164.substring(0, entry.number.e164.length - entry.digits.length)
+            val national = entry.digits.substring(0, 3 + random.nextInt(entry.digits.length - 2))
+            val query = "$countryCode $national"
+
+            val expected = entries.filter { it.number.e164.startsWith(countryCode) && it.digits.contains(national) }
+            val found = index.find(query, Int.MAX_VALUE)
+            assertEquals(query, expected.map { it.number.e164 }.toSet(), found.map { it.e164 }.toSet())
+        }
+    }
+
+    /**
+     * Numbers of other countries that sort before the match must not use up the lookup.
+     */
+    @Test
+    fun otherCountriesDoNotCrowdOutMatches() {
+        index = DigitSuffixIndex()
+        val list = ArrayList<DigitSuffixIndex.Entry>()
+        for (i in 0 until 2 * DigitSuffixIndex.MAX_MATCHES) list.add(entry(i.toLong(), "1", "15112340" + "%03d".format(i)))
+        list.add(entry(list.size.toLong(), "49", "15112345678"))
+        index.update(emptyList(), list)
+
+        assertEquals(listOf("+4915112345678"), index.find("+49 151 1234", 5).map { it.e164 })
+        assertEquals(listOf("+4915112345678"), index.find("0049 1511 2345", 5).map { it.e164 })
+    }
+
+    @Test
+    fun updateRemovesAndReplacesEntries() {
+        val first = entries[0]
+        val second = entries[1]
+        index.update(listOf(first.key, second.key), listOf(entry(second.key, "49", "30901820")))
+
+        assertEquals(CONTACTS - 1, index.size)
+        assertTrue(index.find(first.digits, 5).none { it.e164 == first.number.e164 })
+        assertTrue(index.find(second.digits, 5).none { it.e164 == second.number.e164 })
+        assertEquals(listOf("+4930901820"), index.find("030 901820", 5).map { it.e164 })
+        //removed slots are reused
+        index.update(emptyList(), listOf(first))
+        assertEquals(listOf(first.number.e164), index.find(first.number.e164, 5).map { it.e164 })
+    }
+
+    /**
+     * Types numbers of the address book digit by digit in national and international format and
+     * looks up the suggestions after every keystroke, as the main screen does.
+     */
+    @Test
+    fun keystrokeTakesLessThanAMillisecond() {
+        val typed = ArrayList<String>()
+        repeat(200) {
+            val entry = entries[random.nextInt(entries.size)]
+            typed.add(if (it % 2 == 0) "0" + entry.digits else entry.number.e164)
+        }
+        var nanos = 0L
+        var keystrokes = 0
+        var found = 0
+        for (round in 0 until WARMUP_ROUNDS + MEASURED_ROUNDS) {
+            for (number in typed) {
+                for (length in 1..number.length) {
+                    val start = System.nanoTime()
+                    found += index.find(number.subSequence(0, length), 5).size
+                    val duration = System.nanoTime() - start
+                    if (round >= WARMUP_ROUNDS) {
+                        nanos += duration
+                        keystrokes++
+                    }
+                }
+            }
+        }
+        assertTrue("nothing was found", found > 0)
+        val average = nanos / keystrokes
+        assertTrue("a keystroke took $average ns, at most $MAX_KEYSTROKE_NANOS expected", average < MAX_KEYSTROKE_NANOS)
+    }
+
+    private fun entry(key: Long, countryCode: String, digits: String) =
+        DigitSuffixIndex.Entry(key, digits, ContactNumber("+$countryCode$digits", "Contact $key", null))
+
+    /**
+     * Digits of a national number without leading zero.
+     */
+    private fun randomDigits(length: Int): String {
+        val digits = StringBuilder(length)
+        digits.append('1' + random.nextInt(9))
+        while (digits.length < length) digits.append('0' + random.nextInt(10))
+        return digits.toString()
+    }
+}
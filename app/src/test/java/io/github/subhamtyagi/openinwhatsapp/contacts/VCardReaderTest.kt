@@ -0,0 +1,174 @@
+package io.github.subhamtyagi.openinwhatsapp.contacts
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.InputStream
+
+/**
+ * Reads vCards of every version and line ending, and checks that numbers are emitted while the
+ * stream is still being read.
+ */
+class VCardReaderTest {
+
+    companion object {
+        private const val VCARD_21 = """BEGIN:VCARD
+VERSION:2.1
+N:Mustermann;Erika
+FN:Erika Mustermann
+TEL;CELL:+49 151 1234567
+TEL;HOME;VOICE:030 901820
+EMAIL;INTERNET:erika@example.com
+END:VCARD
+"""
+
+        private const val VCARD_30 = """BEGIN:VCARD
+VERSION:3.0
+FN:John Appleseed
+TEL;TYPE=CELL,VOICE:(201) 555-0123
+item1.TEL;type=work:+1 650 253 0000
+item1.X-ABLabel:_${'$'}!<Work>!${'$'}_
+END:VCARD
+"""
+
+        private const val VCARD_40 = """BEGIN:VCARD
+VERSION:4.0
+FN:Jane Doe
+TEL;VALUE=uri;TYPE="cell,voice";PREF=1:tel:+44-20-7183-8750
+TEL;VALUE=uri;TYPE=home:tel:+33-1-23-45-67-89;ext=12
+END:VCARD
+"""
+    }
+
+    @Test
+    fun vCard21() {
+        assertEquals(
+            listOf(
+                VCardReader.Entry("+49 151 1234567", setOf("CELL"), "Erika Mustermann"),
+                VCardReader.Entry("030 901820", setOf("HOME", "VOICE"), "Erika Mustermann"),
+            ),
+            read(VCARD_21)
+        )
+    }
+
+    @Test
+    fun vCard30() {
+        assertEquals(
+            listOf(
+                VCardReader.Entry("(201) 555-0123", setOf("CELL", "VOICE"), "John Appleseed"),
+                VCardReader.Entry("+1 650 253 0000", setOf("WORK"), "John Appleseed"),
+            ),
+            read(VCARD_30)
+        )
+    }
+
+    @Test
+    fun vCard40TelUris() {
+        assertEquals(
+            listOf(
+                VCardReader.Entry("+44-20-7183-8750", setOf("CELL", "VOICE"), "Jane Doe"),
+                VCardReader.Entry("+33-1-23-45-67-89", setOf("HOME"), "Jane Doe"),
+            ),
+            read(VCARD_40)
+        )
+    }
+
+    @Test
+    fun severalCardsAndNameAfterNumbers() {
+        val entries = read(VCARD_21 + VCARD_30 + "BEGIN:VCARD\nTEL:0612345678\nFN:Late Name\nEND:VCARD\n" + VCARD_40)
+        assertEquals(
+            listOf("Erika Mustermann", "Erika Mustermann", "John Appleseed", "John Appleseed", "Late Name", "Jane Doe", "Jane Doe"),
+            entries.map { it.name }
+        )
+        assertTrue(entries[0].isMobile)
+        assertFalse(entries[1].isMobile)
+    }
+
+    @Test
+    fun crlfAndLfLineEndings() {
+        val lf = VCARD_21 + VCARD_30 + VCARD_40
+        assertEquals(read(lf), read(lf.replace("\n", "\r\n")))
+        assertEquals(read(lf), read(lf.replace("\n", "\r")))
+    }
+
+    @Test
+    fun foldedLines() {
+        val card = "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Jo\r\n hn Apple\r\n\tseed\r\n" +
+                "TEL;TY\r\n PE=CELL:+1 650\r\n  253 0000\r\nPHOTO;ENCODING=b:AAAA\r\n BBBB\r\n CCCC\r\nEND:VCARD\r\n"
+        assertEquals(listOf(VCardReader.Entry("+1 650 253 0000", setOf("CELL"), "John Appleseed")), read(card))
+        assertEquals(read(card), read(card.replace("\r\n", "\n")))
+    }
+
+    @Test
+    fun quotedPrintableSoftLineBreaks() {
+        val card = "BEGIN:VCARD\r\nVERSION:2.1\r\nFN;ENCODING=QUOTED-PRINTABLE:Erika Muster=\r\nmann\r\n" +
+                "TEL;CELL;ENCODING=QUOTED-PRINTABLE:+49 151=\r\n 1234567\r\n" +
+                "NOTE;ENCODING=QUOTED-PRINTABLE:line=0D=0A=\r\nTEL:not a number\r\nEND:VCARD\r\n"
+        assertEquals(listOf(VCardReader.Entry("+49 151 1234567", setOf("CELL"), "Erika Mustermann")), read(card))
+        assertEquals(read(card), read(card.replace("\r\n", "\n")))
+    }
+
+    @Test
+    fun truncatedFileKeepsNumbersReadSoFar() {
+        assertEquals(
+            listOf(VCardReader.Entry("+49 151 1234567", setOf("CELL"), "Erika Mustermann")),
+            read(VCARD_21.substring(0, VCARD_21.indexOf("TEL;HOME")))
+        )
+    }
+
+    /**
+     * A file of a million cards with photos is far larger than the memory of the test, the first
+     * numbers have to arrive after reading little more than the buffer of the reader.
+     */
+    @Test
+    fun largeInputIsStreamed() {
+        val stream = CardStream(1_000_000)
+        VCardReader(stream).use { reader ->
+            val first = reader.numbers().take(10).toList()
+            assertEquals((0 until 10).map { "+49 151 ${1_000_000 + it}" }, first.map { it.number })
+            assertEquals("Contact 9", first[9].name)
+            assertTrue("read ${stream.read} bytes for 10 numbers", stream.read < 256 * 1024)
+        }
+
+        val all = CardStream(2_000)
+        VCardReader(all).use { reader ->
+            assertEquals(2_000, reader.numbers().count())
+        }
+        assertEquals(all.size, all.read)
+    }
+
+    private fun read(vcard: String): List<VCardReader.Entry> =
+        VCardReader(vcard.byteInputStream()).use { it.numbers().toList() }
+
+    /**
+     * Generates cards with an embedded photo of 16 KiB on the fly and counts the bytes read.
+     */
+    private class CardStream(private val cards: Int) : InputStream() {
+
+        private val photo = "A".repeat(16 * 1024)
+
+        private var card = 0
+        private var text = ByteArray(0)
+        private var position = 0
+
+        var read = 0L
+            private set
+
+        val size: Long
+            get() = (0 until cards).sumOf { cardText(it).size.toLong() }
+
+        override fun read(): Int {
+            if (position == text.size) {
+                if (card == cards) return -1
+                text = cardText(card++)
+                position = 0
+            }
+            read++
+            return text[position++].toInt() and 0xff
+        }
+
+        private fun cardText(card: Int) = ("BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Contact $card\r\n" +
+                "PHOTO;ENCODING=b;TYPE=JPEG:$photo\r\nTEL;TYPE=CELL:+49 151 ${1_000_000 + card}\r\nEND:VCARD\r\n").toByteArray()
+    }
+}
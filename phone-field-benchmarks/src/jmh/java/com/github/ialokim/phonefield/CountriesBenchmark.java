@@ -0,0 +1,79 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Country lookups done by {@code PhoneField.selectCountry} for every parsed number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CountriesBenchmark {
+
+    private int[] mDialCodes;
+
+    private long[] mNationalNumbers;
+
+    private Phonenumber.PhoneNumber[] mNumbers;
+
+    private Country[] mCountries;
+
+    @Setup
+    public void setUp() {
+        NumberCorpus corpus = NumberCorpus.generate(NumberCorpus.DEFAULT_SIZE);
+        int size = corpus.size();
+        mDialCodes = new int[size];
+        mNationalNumbers = new long[size];
+        mNumbers = corpus.numbers;
+        mCountries = new Country[size];
+        for (int i = 0; i < size; i++) {
+            mDialCodes[i] = corpus.numbers[i].getCountryCode();
+            mNationalNumbers[i] = corpus.numbers[i].getNationalNumber();
+            //countries without area codes would be answered without a search
+            for (Country country : Countries.get(mDialCodes[i]))
+                if (mCountries[i] == null || country.getAreaCodes().length > 0)
+                    mCountries[i] = country;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NumberCorpus.DEFAULT_SIZE)
+    public void resolve(Blackhole blackhole) {
+        for (Phonenumber.PhoneNumber number : mNumbers)
+            blackhole.consume(Countries.resolve(number));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NumberCorpus.DEFAULT_SIZE)
+    public void resolveDialCode(Blackhole blackhole) {
+        for (int i = 0; i < mDialCodes.length; i++)
+            blackhole.consume(Countries.resolve(mDialCodes[i], mNationalNumbers[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NumberCorpus.DEFAULT_SIZE)
+    public void containsNumber(Blackhole blackhole) {
+        for (int i = 0; i < mCountries.length; i++) {
+            Country country = mCountries[i];
+            blackhole.consume(country != null && country.containsNumber(mNationalNumbers[i]));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.ialokim.phonefield;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the first access to {@link Countries}, i.e. reading the generated country table.
+ * <p>
+ * A class is only initialized once per class loader, so every invocation defines the registry
+ * classes again in a fresh loader. Their bytecode is read up front and not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 200)
+@Measurement(iterations = 200)
+@Fork(3)
+public class CountriesInitBenchmark {
+
+    private static final String[] CLASSES = {
+            Countries.class.getName(),
+            Country.class.getName()
+    };
+
+    private final Map<String, byte[]> mBytecode = new HashMap<>();
+
+    private ClassLoader mLoader;
+
+    @Setup(Level.Trial)
+    public void readBytecode() throws IOException {
+        for (String name : CLASSES) {
+            String resource = name.replace('.', '/') + ".class";
+            try (InputStream in = CountriesInitBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+                mBytecode.put(name, in.readAllBytes());
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newLoader() {
+        mLoader = new IsolatingLoader(mBytecode);
+    }
+
+    @Benchmark
+    public Class<?> classInit() throws ClassNotFoundException {
+        return Class.forName(Countries.class.getName(), true, mLoader);
+    }
+
+    /**
+     * Defines the given classes itself instead of asking its parent first.
+     */
+    private static final class IsolatingLoader extends ClassLoader {
+
+        private final Map<String, byte[]> mBytecode;
+
+        IsolatingLoader(Map<String, byte[]> bytecode) {
+            super(IsolatingLoader.class.getClassLoader());
+            mBytecode = bytecode;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            byte[] bytecode = mBytecode.get(name);
+            if (bytecode == null)
+                return super.loadClass(name, resolve);
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null)
+                    loaded = defineClass(name, bytecode, 0, bytecode.length);
+                return loaded;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.ialokim.phonefield;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches of the country picker, one operation is the query after one keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CountrySearchBenchmark {
+
+    /**
+     * Every prefix of a few searches, single letters and the bare "+" match the most keys.
+     */
+    private static final String[] QUERIES = {
+            "g", "ge", "ger", "germ", "germa", "german", "germany",
+            "u", "un", "uni", "unit", "united", "united ", "united k",
+            "+", "+4", "+44", "+1", "+1 ", "+1 6", "+1 68", "+1 684",
+            "c", "co", "cot", "cote", "de", "in"
+    };
+
+    private CountryNames mNames;
+
+    private CountrySearchIndex mIndex;
+
+    @Setup
+    public void setUp() {
+        mNames = CountryNames.getInstance();
+        mIndex = mNames.getSearchIndex();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(28)
+    public void search(Blackhole blackhole) {
+        for (String query : QUERIES)
+            blackhole.consume(mIndex.search(query));
+    }
+
+    @Benchmark
+    public CountrySearchIndex build() {
+        return new CountrySearchIndex(mNames);
+    }
+}
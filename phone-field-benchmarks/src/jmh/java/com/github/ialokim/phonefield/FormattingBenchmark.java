@@ -0,0 +1,122 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting done while typing and when reading the number back from a {@code PhoneField}.
+ * <p>
+ * One operation is one number of the corpus, the typing benchmarks feed it one keystroke at a time
+ * to the {@link PhoneNumberReformatter} behind {@code PhoneNumberFormattingTextWatcher}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FormattingBenchmark {
+
+    private final PhoneNumberUtil mUtil = PhoneNumberUtil.getInstance();
+
+    private NumberCorpus mCorpus;
+
+    private PhoneNumberReformatter[] mReformatters;
+
+    private final StringBuilder mText = new StringBuilder();
+
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mCorpus = NumberCorpus.generate(NumberCorpus.DEFAULT_SIZE);
+        mReformatters = new PhoneNumberReformatter[mCorpus.size()];
+        for (int i = 0; i < mReformatters.length; i++)
+            mReformatters[i] = new PhoneNumberReformatter(mCorpus.regions[i]);
+    }
+
+    private int next() {
+        int index = mNext;
+        mNext = index + 1 == mCorpus.size() ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * Typing a number digit by digit at the end of the field.
+     */
+    @Benchmark
+    public void typeAtEnd(Blackhole blackhole) {
+        int index = next();
+        PhoneNumberReformatter reformatter = mReformatters[index];
+        String input = mCorpus.inputs[index];
+        mText.setLength(0);
+        reformatter.reformat(mText, 0);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!PhoneNumberReformatter.isNonSeparator(c))
+                continue;
+            mText.append(c);
+            String formatted = reformatter.reformat(mText, mText.length());
+            if (formatted != null) {
+                mText.setLength(0);
+                mText.append(formatted);
+            }
+        }
+        blackhole.consume(mText.length());
+    }
+
+    /**
+     * Typing a number and correcting its second digit afterwards, which needs a full reformat.
+     */
+    @Benchmark
+    public void editInMiddle(Blackhole blackhole) {
+        int index = next();
+        PhoneNumberReformatter reformatter = mReformatters[index];
+        mText.setLength(0);
+        mText.append(mCorpus.inputs[index]);
+        reformatter.reformat(mText, mText.length());
+        mText.insert(Math.min(2, mText.length()), '5');
+        blackhole.consume(reformatter.reformat(mText, 3));
+    }
+
+    /**
+     * Parsing and formatting like {@code PhoneField.getPhoneNumberE164()}.
+     */
+    @Benchmark
+    public String formatE164() {
+        int index = next();
+        try {
+            Phonenumber.PhoneNumber number = mUtil.parseAndKeepRawInput(mCorpus.inputs[index], mCorpus.regions[index]);
+            return mUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.E164);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parsing and detecting the country like {@code PhoneField} does on every keystroke.
+     */
+    @Benchmark
+    public Country parseAndSelectCountry() {
+        int index = next();
+        try {
+            return Countries.resolve(mUtil.parse(mCorpus.inputs[index], mCorpus.regions[index]));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Reproducible corpus of phone numbers from all regions, written the ways users type or paste
+ * them: E.164, international and national format, and with the 00 international prefix.
+ * <p>
+ * The numbers are derived from the libphonenumber example numbers with their last digits
+ * randomized, so a few of them are not valid, just like real input.
+ */
+final class NumberCorpus {
+
+    static final int DEFAULT_SIZE = 4096;
+
+    private static final long SEED = 0x5048_4f4e_45L;
+
+    private static final PhoneNumberUtil.PhoneNumberType[] TYPES = {
+            PhoneNumberUtil.PhoneNumberType.MOBILE,
+            PhoneNumberUtil.PhoneNumberType.FIXED_LINE
+    };
+
+    /**
+     * The raw input as typed.
+     */
+    final String[] inputs;
+
+    /**
+     * The region the input was typed in, used as default region when parsing.
+     */
+    final String[] regions;
+
+    /**
+     * The input parsed with libphonenumber.
+     */
+    final Phonenumber.PhoneNumber[] numbers;
+
+    private NumberCorpus(int size) {
+        inputs = new String[size];
+        regions = new String[size];
+        numbers = new Phonenumber.PhoneNumber[size];
+    }
+
+    static NumberCorpus generate(int size) {
+        PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+        List<Phonenumber.PhoneNumber> examples = new ArrayList<>();
+        List<String> exampleRegions = new ArrayList<>();
+        for (String region : new TreeSet<>(util.getSupportedRegions())) {
+            for (PhoneNumberUtil.PhoneNumberType type : TYPES) {
+                Phonenumber.PhoneNumber example = util.getExampleNumberForType(region, type);
+                if (example != null) {
+                    examples.add(example);
+                    exampleRegions.add(region);
+                }
+            }
+        }
+
+        Random random = new Random(SEED);
+        NumberCorpus corpus = new NumberCorpus(size);
+        for (int i = 0; i < size; i++) {
+            int index = random.nextInt(examples.size());
+            Phonenumber.PhoneNumber number = randomize(examples.get(index), random);
+            String region = exampleRegions.get(index);
+            String input;
+            switch (random.nextInt(4)) {
+                case 0:
+                    input = util.format(number, PhoneNumberUtil.PhoneNumberFormat.E164);
+                    break;
+                case 1:
+                    input = util.format(number, PhoneNumberUtil.PhoneNumberFormat.INTERNATIONAL);
+                    break;
+                case 2:
+                    input = util.format(number, PhoneNumberUtil.PhoneNumberFormat.NATIONAL);
+                    break;
+                default:
+                    input = "00" + util.format(number, PhoneNumberUtil.PhoneNumberFormat.E164).substring(1);
+                    break;
+            }
+            corpus.inputs[i] = input;
+            corpus.regions[i] = region;
+            try {
+                corpus.numbers[i] = util.parseAndKeepRawInput(input, region);
+            } catch (Exception e) {
+                corpus.numbers[i] = number;
+            }
+        }
+        return corpus;
+    }
+
+    private static Phonenumber.PhoneNumber randomize(Phonenumber.PhoneNumber example, Random random) {
+        long national = example.getNationalNumber();
+        //keep the length and the leading digits that decide the region
+        long suffix = national < 100000 ? 10 : 1000;
+        national = national - national % suffix + random.nextInt((int) suffix);
+        return new Phonenumber.PhoneNumber().mergeFrom(example).setNationalNumber(national);
+    }
+
+    int size() {
+        return inputs.length;
+    }
+}
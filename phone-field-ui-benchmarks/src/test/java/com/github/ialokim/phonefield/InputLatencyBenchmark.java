@@ -0,0 +1,262 @@
+package com.github.ialokim.phonefield;
+
+import android.app.Activity;
+import android.content.Context;
+import android.text.Editable;
+import android.text.Selection;
+import android.view.ActionMode;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.Spinner;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.fakes.RoboMenuItem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static android.os.Looper.getMainLooper;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * End-to-end latency of the edits a user makes in a {@link PhoneField}.
+ * <p>
+ * Every operation goes through the real view: the keystrokes are applied to the {@link Editable}
+ * of the {@code EditText}, so the field's TextWatcher, the formatting watcher and their nested
+ * {@code setText} calls run as they do on a device, a paste is announced through the action mode
+ * callback like the context menu does, and a country is picked through the {@link Spinner}. The
+ * time until the call returns is what the UI thread is blocked for.
+ * <p>
+ * Each scenario first runs {@link #WARMUP_ROUNDS} rounds over the corpus, which are dropped, then
+ * {@link #MEASURED_ROUNDS} measured rounds. The results of all scenarios are written as JSON to the
+ * file named by the {@code uiBenchmarks.results} system property.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class InputLatencyBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final int MEASURED_ROUNDS = 50;
+
+    /**
+     * Numbers as typed in their region, national formats with and without trunk prefix and one in
+     * E.164, so the formatter and the country detection take different paths.
+     */
+    private static final String[][] CORPUS = {
+            {"DE", "015112345678"},
+            {"US", "2015550123"},
+            {"GB", "07400123456"},
+            {"FR", "0612345678"},
+            {"IN", "9876543210"},
+            {"BR", "11961234567"},
+            {"DE", "+4915112345678"},
+    };
+
+    private static final String[] COUNTRIES = {"DE", "US", "GB", "FR", "IN", "BR", "JP", "NG"};
+
+    private static final List<OperationRecorder> sRecorders = new ArrayList<>();
+
+    private Context mContext;
+
+    private ViewGroup mContent;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mContext = new ContextThemeWrapper(activity,
+                com.google.android.material.R.style.Theme_MaterialComponents_Light);
+        mContent = new FrameLayout(mContext);
+        activity.setContentView(mContent);
+    }
+
+    @Test
+    public void inflate() {
+        OperationRecorder inputLayout = recorder("inflate.inputLayout");
+        OperationRecorder editText = recorder("inflate.editText");
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            if (round == WARMUP_ROUNDS) {
+                inputLayout.reset();
+                editText.reset();
+            }
+            inputLayout.begin();
+            new PhoneInputLayout(mContext);
+            inputLayout.end();
+            editText.begin();
+            new PhoneEditText(mContext);
+            editText.end();
+            //the country names built for every field in the background are posted back
+            shadowOf(getMainLooper()).idle();
+        }
+    }
+
+    @Test
+    public void typeAndDeleteFormatted() {
+        typeAndDelete("formatted", createField(true));
+    }
+
+    @Test
+    public void typeAndDeletePlain() {
+        typeAndDelete("plain", createField(false));
+    }
+
+    @Test
+    public void paste() {
+        PhoneField field = createField(true);
+        OperationRecorder paste = recorder("paste");
+        ActionMode.Callback callback = field.getEditText().getCustomSelectionActionModeCallback();
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            if (round == WARMUP_ROUNDS)
+                paste.reset();
+            for (String[] entry : CORPUS) {
+                field.setDefaultCountry(entry[0]);
+                Editable text = field.getEditText().getText();
+                paste.begin();
+                callback.onActionItemClicked(null, new RoboMenuItem(android.R.id.paste));
+                text.replace(0, text.length(), entry[1]);
+                paste.end();
+                //the field replaces the pasted text with a new Editable
+                field.getEditText().getText().clear();
+            }
+        }
+    }
+
+    @Test
+    public void switchCountry() {
+        PhoneField field = createField(true);
+        Spinner spinner = field.getSpinner();
+        CountriesAdapter adapter = (CountriesAdapter) spinner.getAdapter();
+        OperationRecorder switchCountry = recorder("switchCountry");
+        field.getEditText().getText().append("015112345678");
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            if (round == WARMUP_ROUNDS)
+                switchCountry.reset();
+            for (String code : COUNTRIES) {
+                int position = adapter.getPosition(Countries.getByCode(code));
+                switchCountry.begin();
+                spinner.setSelection(position);
+                //the selection is only dispatched to the listener by the next layout pass
+                layout(field);
+                shadowOf(getMainLooper()).idle();
+                switchCountry.end();
+            }
+        }
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        PrintWriter out = new PrintWriter(System.out);
+        for (OperationRecorder recorder : sRecorders)
+            recorder.dump(out);
+        out.flush();
+
+        String path = System.getProperty("uiBenchmarks.results");
+        if (path == null)
+            return;
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            writer.println("[");
+            for (int i = 0; i < sRecorders.size(); i++) {
+                writer.print("  ");
+                sRecorders.get(i).writeJson(writer);
+                writer.println(i < sRecorders.size() - 1 ? "," : "");
+            }
+            writer.println("]");
+        }
+    }
+
+    /**
+     * Types every number of the corpus one digit at a time, then deletes it from the end, the way
+     * a keyboard edits the text at the cursor.
+     */
+    private void typeAndDelete(String variant, PhoneField field) {
+        OperationRecorder keystroke = recorder("keystroke." + variant);
+        OperationRecorder delete = recorder("delete." + variant);
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            if (round == WARMUP_ROUNDS) {
+                keystroke.reset();
+                delete.reset();
+            }
+            for (String[] entry : CORPUS) {
+                field.setDefaultCountry(entry[0]);
+                String number = entry[1];
+                for (int i = 0; i < number.length(); i++) {
+                    //rewriting the text may swap the Editable, it is looked up for every key
+                    Editable text = field.getEditText().getText();
+                    int cursor = cursor(text);
+                    keystroke.begin();
+                    text.replace(cursor, cursor, number, i, i + 1);
+                    keystroke.end();
+                }
+                while (field.getEditText().length() > 0) {
+                    Editable text = field.getEditText().getText();
+                    int cursor = cursor(text);
+                    if (cursor == 0)
+                        cursor = text.length();
+                    delete.begin();
+                    text.delete(cursor - 1, cursor);
+                    delete.end();
+                }
+                //async parsing and the formatter may have posted work, it must not pile up
+                shadowOf(getMainLooper()).idle();
+            }
+        }
+        assertTrue(keystroke.getCount() > 0);
+    }
+
+    private PhoneField createField(boolean autoFormat) {
+        PhoneInputLayout field = new PhoneInputLayout(mContext);
+        field.setDefaultCountry("DE");
+        if (autoFormat)
+            field.setAutoFormat(true);
+        mContent.addView(field);
+        layout(field);
+
+        //the country list is built in the background, wait until it was swapped in like after the
+        //first frames of a real screen
+        CountriesAdapter adapter = (CountriesAdapter) field.getSpinner().getAdapter();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!adapter.isLoaded() && System.currentTimeMillis() < deadline) {
+            shadowOf(getMainLooper()).idle();
+            Thread.yield();
+        }
+        assertTrue("the country list was not loaded", adapter.isLoaded());
+        return field;
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private static int cursor(Editable text) {
+        int cursor = Selection.getSelectionEnd(text);
+        return cursor < 0 ? text.length() : cursor;
+    }
+
+    private static OperationRecorder recorder(String name) {
+        OperationRecorder recorder = new OperationRecorder(name);
+        sRecorders.add(recorder);
+        return recorder;
+    }
+}
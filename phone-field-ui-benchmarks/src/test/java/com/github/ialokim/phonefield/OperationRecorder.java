@@ -0,0 +1,119 @@
+package com.github.ialokim.phonefield;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Wall time and allocations of one kind of operation on the main thread.
+ * <p>
+ * Durations go into a {@link LatencyHistogram}, the same one the field keeps of its own stages, so
+ * the reported percentiles can be compared with {@code PhoneField.dumpLatency()}. Allocations are
+ * read from the HotSpot thread counters and include everything the operation allocated on the
+ * calling thread, not only what survives it.
+ */
+final class OperationRecorder {
+
+    private static final com.sun.management.ThreadMXBean sThreads = threads();
+
+    /**
+     * Operations slower than this miss a frame at 60 Hz.
+     */
+    private static final long FRAME_NANOS = 16_666_667;
+
+    final String mName;
+
+    private final LatencyHistogram mHistogram = new LatencyHistogram();
+
+    private long mTotalNanos;
+
+    private long mAllocatedBytes;
+
+    private long mSlowFrames;
+
+    private long mStartNanos;
+
+    private long mStartBytes;
+
+    OperationRecorder(String name) {
+        mName = name;
+    }
+
+    /**
+     * Starts measuring an operation, on the thread that runs it.
+     */
+    void begin() {
+        mStartBytes = allocatedBytes();
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the operation started by {@link #begin()}.
+     */
+    void end() {
+        long duration = System.nanoTime() - mStartNanos;
+        mAllocatedBytes += allocatedBytes() - mStartBytes;
+        mTotalNanos += duration;
+        if (duration > FRAME_NANOS)
+            mSlowFrames++;
+        mHistogram.record(duration);
+    }
+
+    /**
+     * Drops the operations recorded so far, called once the warmup is over.
+     */
+    void reset() {
+        mHistogram.reset();
+        mTotalNanos = 0;
+        mAllocatedBytes = 0;
+        mSlowFrames = 0;
+    }
+
+    long getCount() {
+        return mHistogram.getCount();
+    }
+
+    /**
+     * Writes the results as one JSON object, durations in nanoseconds.
+     *
+     * @param writer the writer
+     */
+    void writeJson(PrintWriter writer) {
+        long count = Math.max(1, getCount());
+        writer.print(String.format(Locale.ROOT,
+                "{\"name\": \"%s\", \"count\": %d, \"meanNanos\": %d, \"p50Nanos\": %d, \"p90Nanos\": %d,"
+                        + " \"p99Nanos\": %d, \"maxNanos\": %d, \"slowFrames\": %d, \"allocatedBytesPerOp\": %s}",
+                mName, getCount(), mTotalNanos / count, mHistogram.getPercentile(50),
+                mHistogram.getPercentile(90), mHistogram.getPercentile(99), mHistogram.getMax(), mSlowFrames,
+                sThreads != null ? Long.toString(mAllocatedBytes / count) : "null"));
+    }
+
+    /**
+     * Prints the results as one line, durations in microseconds.
+     *
+     * @param writer the writer
+     */
+    void dump(PrintWriter writer) {
+        writer.println(String.format(Locale.ROOT, "%-24s count=%d p50=%.1fus p99=%.1fus max=%.1fus %s bytes/op %d over 16ms",
+                mName, getCount(), mHistogram.getPercentile(50) / 1000.0, mHistogram.getPercentile(99) / 1000.0,
+                mHistogram.getMax() / 1000.0, sThreads != null ? mAllocatedBytes / Math.max(1, getCount()) : "?",
+                mSlowFrames));
+    }
+
+    private static long allocatedBytes() {
+        if (sThreads == null)
+            return 0;
+        return sThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        //only HotSpot based VMs count allocations per thread
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported())
+            return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
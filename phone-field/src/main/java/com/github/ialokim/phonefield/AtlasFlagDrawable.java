@@ -0,0 +1,121 @@
+package com.github.ialokim.phonefield;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.github.subhamtyagi.phone.R;
+
+/**
+ * Drawable that renders a country flag as a region of the flag atlas generated at build time.
+ * <p>
+ * The atlas is decoded once per process and shared by every instance, so the country list costs a
+ * single decode and texture upload instead of one per flag. One instance is kept per row and
+ * switched between countries with {@link #setCountry(Country)}.
+ */
+public class AtlasFlagDrawable extends Drawable {
+
+    private static Bitmap sAtlas;
+
+    private final Bitmap mAtlas;
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final Rect mSource = new Rect();
+
+    public AtlasFlagDrawable(Resources resources) {
+        mAtlas = getAtlas(resources);
+    }
+
+    /**
+     * Decodes the atlas, or returns the one decoded before.
+     *
+     * @param resources resources of the application
+     * @return the atlas or {@code null} if it could not be decoded
+     */
+    static synchronized Bitmap getAtlas(Resources resources) {
+        if (sAtlas == null) {
+            InputStream stream = resources.openRawResource(R.raw.country_flags_atlas);
+            try {
+                sAtlas = BitmapFactory.decodeStream(stream);
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return sAtlas;
+    }
+
+    /**
+     * Checks whether the atlas contains the flag of a country.
+     *
+     * @param country the country
+     * @return whether the flag can be drawn from the atlas
+     */
+    public static boolean contains(Country country) {
+        return CountryFlags.getAtlasCell(country.getCode()) != -1;
+    }
+
+    /**
+     * Switches the flag to another country.
+     *
+     * @param country the country
+     */
+    public void setCountry(Country country) {
+        int cell = CountryFlags.getAtlasCell(country.getCode());
+        if (cell == -1) {
+            mSource.setEmpty();
+        } else {
+            int size = CountryFlags.ATLAS_CELL_SIZE;
+            int left = cell % CountryFlags.ATLAS_COLUMNS * size;
+            int top = cell / CountryFlags.ATLAS_COLUMNS * size;
+            mSource.set(left, top, left + size, top + size);
+        }
+        invalidateSelf();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mAtlas == null || mSource.isEmpty())
+            return;
+        canvas.drawBitmap(mAtlas, mSource, getBounds(), mPaint);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return CountryFlags.ATLAS_CELL_SIZE;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return CountryFlags.ATLAS_CELL_SIZE;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
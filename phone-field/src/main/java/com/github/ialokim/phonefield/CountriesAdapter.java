@@ -1,6 +1,7 @@
 package com.github.ialokim.phonefield;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,6 +10,7 @@ import android.widget.ImageView;
 import android.widget.SpinnerAdapter;
 import android.widget.TextView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import io.github.subhamtyagi.phone.R;
@@ -22,19 +24,206 @@ public class CountriesAdapter extends ArrayAdapter<Country> implements SpinnerAd
 
     private final LayoutInflater mInflater;
 
+    /**
+     * The countries of a lazy adapter, the other adapters use the list of {@link ArrayAdapter}.
+     */
+    private List<Country> mCountries;
+
+    private CountryNames mNames;
+
+    /**
+     * Whether only the selected country is shown until {@link #setNames(CountryNames)} is called.
+     */
+    private boolean mLazy;
+
+    /**
+     * Whether the adapter backs the list of the country picker, which shows every row like the
+     * dropdown and can be filtered with {@link #setQuery(CharSequence)}.
+     */
+    private boolean mSearchable;
+
+    private boolean mEmojiFlags;
+
     public CountriesAdapter(Context context, List<Country> countries) {
         super(context, R.layout.item_country, R.id.name, countries);
         mInflater = LayoutInflater.from(getContext());
     }
 
+    /**
+     * Instantiates an adapter over the process-wide list of countries sorted for the current
+     * locale. The list is shared, so it must not be modified through this adapter.
+     *
+     * @param context the context
+     */
+    public CountriesAdapter(Context context) {
+        this(context, CountryNames.getInstance());
+    }
+
+    private CountriesAdapter(Context context, CountryNames names) {
+        super(context, R.layout.item_country, R.id.name, names.getSortedCountries());
+        mInflater = LayoutInflater.from(getContext());
+        mNames = names;
+    }
+
+    /**
+     * Instantiates an adapter that only holds the selected country, which is all a closed spinner
+     * shows. The sorted list is swapped in with {@link #setNames(CountryNames)} before the dropdown
+     * opens, so resolving and sorting the names stays out of the view's construction.
+     *
+     * @param context  the context
+     * @param selected the initially selected country, or {@code null}
+     * @return the adapter
+     */
+    static CountriesAdapter createLazy(Context context, Country selected) {
+        List<Country> countries = new ArrayList<>(1);
+        if (selected != null)
+            countries.add(selected);
+        CountriesAdapter adapter = new CountriesAdapter(context, new ArrayList<Country>(0));
+        adapter.mCountries = countries;
+        adapter.mLazy = true;
+        return adapter;
+    }
+
+    /**
+     * Instantiates an adapter for the list of the country picker, showing all countries until a
+     * query is set.
+     *
+     * @param context the context
+     * @param names   the names for the current locale
+     * @return the adapter
+     */
+    static CountriesAdapter createSearchable(Context context, CountryNames names) {
+        CountriesAdapter adapter = new CountriesAdapter(context, names);
+        adapter.mCountries = names.getSortedCountries();
+        adapter.mSearchable = true;
+        return adapter;
+    }
+
+    /**
+     * Checks whether all countries are available, which is always the case unless the adapter
+     * was created with {@link #createLazy(Context, Country)}.
+     *
+     * @return whether the full list is shown
+     */
+    boolean isLoaded() {
+        return !mLazy;
+    }
+
+    /**
+     * Replaces the single country of a lazy adapter that has not been loaded yet.
+     *
+     * @param country the selected country
+     */
+    void setSelectedCountry(Country country) {
+        if (!mLazy || country == null || (!mCountries.isEmpty() && mCountries.get(0) == country))
+            return;
+        mCountries.clear();
+        mCountries.add(country);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Swaps in the process-wide sorted list, once the names were resolved.
+     *
+     * @param names the names for the current locale
+     */
+    void setNames(CountryNames names) {
+        if (!mLazy)
+            return;
+        mLazy = false;
+        mNames = names;
+        mCountries = names.getSortedCountries();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Shows only the countries matching a query, see {@link CountrySearchIndex#search(CharSequence)}.
+     *
+     * @param query the text typed into the search field, empty for all countries
+     */
+    void setQuery(CharSequence query) {
+        if (!mSearchable)
+            return;
+        long span = PhoneFieldTrace.begin(PhoneFieldTrace.SEARCH_COUNTRIES);
+        mCountries = mNames.getSearchIndex().search(query);
+        PhoneFieldTrace.end(PhoneFieldTrace.SEARCH_COUNTRIES, span);
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getCount() {
+        return mCountries != null ? mCountries.size() : super.getCount();
+    }
+
+    @Override
+    public Country getItem(int position) {
+        return mCountries != null ? mCountries.get(position) : super.getItem(position);
+    }
+
+    @Override
+    public int getPosition(Country item) {
+        if (mSearchable)
+            return mCountries.indexOf(item);
+        if (mNames != null)
+            return mNames.getPosition(item);
+        if (mLazy)
+            //the same instance check as CountryNames, a lazy adapter only knows the selected country
+            return !mCountries.isEmpty() && mCountries.get(0) == item ? 0 : -1;
+        return super.getPosition(item);
+    }
+
+    /**
+     * Draws the flags as emoji instead of the bundled images whenever the font supports them.
+     *
+     * @param emojiFlags whether to prefer emoji flags
+     */
+    public void setEmojiFlags(boolean emojiFlags) {
+        if (mEmojiFlags != emojiFlags) {
+            mEmojiFlags = emojiFlags;
+            notifyDataSetChanged();
+        }
+    }
+
+    boolean isEmojiFlags() {
+        return mEmojiFlags;
+    }
+
+    private void bindFlag(ImageView imageView, Country country) {
+        Drawable drawable = imageView.getDrawable();
+        if (mEmojiFlags && EmojiFlagDrawable.canRender(country)) {
+            EmojiFlagDrawable flag;
+            if (drawable instanceof EmojiFlagDrawable) {
+                flag = (EmojiFlagDrawable) drawable;
+            } else {
+                flag = new EmojiFlagDrawable();
+                imageView.setImageDrawable(flag);
+            }
+            flag.setCountry(country);
+        } else if (AtlasFlagDrawable.contains(country)) {
+            //all rows draw from the same atlas bitmap, which is decoded only once
+            AtlasFlagDrawable flag;
+            if (drawable instanceof AtlasFlagDrawable) {
+                flag = (AtlasFlagDrawable) drawable;
+            } else {
+                flag = new AtlasFlagDrawable(getContext().getResources());
+                imageView.setImageDrawable(flag);
+            }
+            flag.setCountry(country);
+        } else {
+            imageView.setImageResource(country.getResId(getContext()));
+        }
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
+        if (mSearchable)
+            return getCustomView(position, convertView, parent);
         Country country = getItem(position);
         if (convertView == null) {
             convertView = mInflater.inflate(R.layout.spinner_value, parent, false);
         }
         ImageView imageView = (ImageView) convertView.findViewById(R.id.flag);
-        imageView.setImageResource(country.getResId(getContext()));
+        bindFlag(imageView, country);
         return convertView;
     }
 
@@ -56,7 +245,7 @@ public class CountriesAdapter extends ArrayAdapter<Country> implements SpinnerAd
             viewHolder = (ViewHolder) convertView.getTag();
         }
         Country country = getItem(position);
-        viewHolder.mFlag.setImageResource(country.getResId(getContext()));
+        bindFlag(viewHolder.mFlag, country);
         viewHolder.mName.setText(country.getDisplayName());
         viewHolder.mDialCode.setText(country.getDialCode(true));
         return convertView;
@@ -1,44 +1,116 @@
 package com.github.ialokim.phonefield;
 
 import android.content.Context;
-import android.content.res.Resources;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
 /**
  * Country object that holds the country iso2 code, dial code, a list of known area codes and it's priority.
+ * <p>
+ * Area codes may differ in length. They are kept as a sorted primitive array where each code is
+ * prefixed with a 1 marking its digit count, so "06698" is stored as 106698 and "79" as 179.
  */
 public class Country {
 
+    private static final int[] NO_AREA_CODES = new int[0];
+
+    static final long[] POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
     private final String mCode;
 
+    private final String mRegionCode;
+
     private final int mDialCode;
 
-    private final List<String> mAreaCodes;
-    private final int mAreaCodeLength;
+    private final int[] mAreaCodes;
+    private final int mMinAreaCodeLength;
+    private final int mMaxAreaCodeLength;
 
     private final boolean mPriority;
 
+    private String mFlagEmoji;
+
+    private int mResId = -1;
+
     public Country(String code, int dialCode, boolean priority) {
-        this(code, dialCode, priority, new ArrayList<String>());
+        this(code, dialCode, priority, NO_AREA_CODES);
     }
+
     public Country(String code, int dialCode, boolean priority, List<String> areaCodes) {
+        this(code, dialCode, priority, encodeAreaCodes(areaCodes));
+    }
+
+    /**
+     * Instantiates a new Country.
+     *
+     * @param code           the ISO 3166-1 alpha-2 code
+     * @param dialCode       the country calling code
+     * @param priority       whether the country is picked when none of its area codes can be checked
+     * @param areaCodeLength the number of digits of every area code, including leading zeros
+     * @param areaCodes      the known area codes
+     */
+    public Country(String code, int dialCode, boolean priority, int areaCodeLength, int... areaCodes) {
+        this(code, dialCode, priority, encodeAreaCodes(areaCodeLength, areaCodes));
+    }
+
+    /**
+     * Instantiates a new Country from area codes that are already encoded with their length marker
+     * and sorted, as stored in the generated country table.
+     */
+    Country(String code, int dialCode, boolean priority, int[] encodedAreaCodes) {
         mCode = code;
+        mRegionCode = code.toUpperCase(Locale.ROOT);
         mDialCode = dialCode;
-        mAreaCodes = areaCodes;
-        if (areaCodes.size() == 0)
-            mAreaCodeLength = 0;
-        else
-            mAreaCodeLength = mAreaCodes.get(0).length();
+        mAreaCodes = encodedAreaCodes;
+        int min = 0;
+        int max = 0;
+        for (int areaCode : encodedAreaCodes) {
+            int length = digitCount(areaCode) - 1;
+            min = min == 0 ? length : Math.min(min, length);
+            max = Math.max(max, length);
+        }
+        mMinAreaCodeLength = min;
+        mMaxAreaCodeLength = max;
         mPriority = priority;
     }
 
+    private static int[] encodeAreaCodes(int areaCodeLength, int[] areaCodes) {
+        int[] encoded = new int[areaCodes.length];
+        for (int i = 0; i < encoded.length; i++)
+            encoded[i] = (int) POW10[areaCodeLength] + areaCodes[i];
+        Arrays.sort(encoded);
+        return encoded;
+    }
+
+    private static int[] encodeAreaCodes(List<String> areaCodes) {
+        int[] encoded = new int[areaCodes.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            String areaCode = areaCodes.get(i);
+            encoded[i] = (int) POW10[areaCode.length()] + Integer.parseInt(areaCode);
+        }
+        Arrays.sort(encoded);
+        return encoded;
+    }
+
     public String getCode() {
         return mCode;
     }
 
+    /**
+     * Gets the code in upper case as libphonenumber expects it, without converting it every time.
+     *
+     * @return the region code, e.g. "DE"
+     */
+    String getRegionCode() {
+        return mRegionCode;
+    }
+
     public String getDialCode() {
         return getDialCode(false);
     }
@@ -46,30 +118,96 @@ public class Country {
     public String getDialCode(boolean formatted) {
         if (formatted) {
             String code = "+" + mDialCode;
-            if (mAreaCodes.size() == 1)
-                code += " " + mAreaCodes.get(0);
+            if (mAreaCodes.length == 1)
+                code += " " + String.valueOf(mAreaCodes[0]).substring(1);
             return code;
         }
         return String.valueOf(mDialCode);
     }
 
+    int getDialCodeValue() {
+        return mDialCode;
+    }
+
+    int[] getAreaCodes() {
+        return mAreaCodes;
+    }
+
+    int getMinAreaCodeLength() {
+        return mMinAreaCodeLength;
+    }
+
+    int getMaxAreaCodeLength() {
+        return mMaxAreaCodeLength;
+    }
+
+    boolean hasPriority() {
+        return mPriority;
+    }
+
+    static int digitCount(long number) {
+        int digits = 1;
+        while (digits < POW10.length && number >= POW10[digits])
+            digits++;
+        return digits;
+    }
+
     public boolean containsNumber(long number) {
-        String national = String.valueOf(number);
-        if (mAreaCodeLength > 0 && national.length() >= mAreaCodeLength) {
-            String areaCode = national.substring(0,mAreaCodeLength);
-            return mAreaCodes.contains(areaCode);
+        int digits = digitCount(number);
+        if (mMinAreaCodeLength > 0 && digits >= mMinAreaCodeLength) {
+            int max = Math.min(digits, mMaxAreaCodeLength);
+            for (int length = mMinAreaCodeLength; length <= max; length++) {
+                long areaCode = POW10[length] + number / POW10[digits - length];
+                if (Arrays.binarySearch(mAreaCodes, (int) areaCode) >= 0)
+                    return true;
+            }
+            return false;
         }
 
         return mPriority;
     }
 
+    /**
+     * Gets the name of the country in the current default locale.
+     *
+     * @return the cached display name
+     */
     public String getDisplayName() {
-        return new Locale("", mCode).getDisplayCountry();
+        return CountryNames.getInstance().getDisplayName(this);
     }
 
+    /**
+     * Gets the flag of the country as a pair of Unicode regional indicator symbols.
+     *
+     * @return the flag emoji, e.g. the regional indicators D and E for de
+     */
+    public String getFlagEmoji() {
+        if (mFlagEmoji == null) {
+            StringBuilder sb = new StringBuilder(4);
+            for (int i = 0; i < mCode.length(); i++)
+                sb.appendCodePoint(0x1F1E6 + (Character.toLowerCase(mCode.charAt(i)) - 'a'));
+            mFlagEmoji = sb.toString();
+        }
+        return mFlagEmoji;
+    }
+
+    /**
+     * Gets the flag drawable of the country.
+     * <p>
+     * The id is looked up by name once per country. The library itself draws the flags from the
+     * atlas, so apps that never call this may discard the country_flag_* drawables with
+     * {@code tools:discard="@drawable/country_flag_*"} in their keep.xml.
+     *
+     * @param context the context
+     * @return the drawable resource id or 0 if there is no flag for this country
+     */
     public int getResId(Context context) {
-        String name = String.format("country_flag_%s", mCode.toLowerCase());
-        final Resources resources = context.getResources();
-        return resources.getIdentifier(name, "drawable", context.getPackageName());
+        int resId = mResId;
+        if (resId == -1) {
+            resId = context.getResources().getIdentifier("country_flag_" + mCode.toLowerCase(Locale.ROOT),
+                    "drawable", context.getPackageName());
+            mResId = resId;
+        }
+        return resId;
     }
 }
@@ -0,0 +1,160 @@
+package com.github.ialokim.phonefield;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Display names and collation keys of all countries for one locale.
+ * <p>
+ * Resolving a country name goes through the ICU locale data, which is too slow to do inside a sort
+ * comparator or while binding dropdown rows. The names are therefore resolved once per locale and
+ * kept next to their {@link CollationKey}s, so sorting follows the rules of the locale instead of
+ * plain {@code compareToIgnoreCase}. The cache is rebuilt as soon as the default locale changes,
+ * which happens on a configuration change.
+ * <p>
+ * It also keeps the countries sorted by name, shared by every {@link CountriesAdapter} of the
+ * process, so that a new {@link PhoneField} does not have to copy and sort the list again, and the
+ * {@link CountrySearchIndex} of the country picker for the same locale.
+ */
+final class CountryNames {
+
+    private static volatile CountryNames sCurrent;
+
+    private final Locale mLocale;
+
+    private final Collator mCollator;
+
+    private final String[] mNames = new String[Countries.CODE_INDEX_SIZE];
+
+    private final CollationKey[] mKeys = new CollationKey[Countries.CODE_INDEX_SIZE];
+
+    private final List<Country> mSorted;
+
+    /**
+     * Position of each country in {@link #mSorted}, indexed by ISO code.
+     */
+    private final int[] mPositions = new int[Countries.CODE_INDEX_SIZE];
+
+    private volatile CountrySearchIndex mSearchIndex;
+
+    private final Comparator<Country> mComparator = new Comparator<Country>() {
+        @Override
+        public int compare(Country c1, Country c2) {
+            return getCollationKey(c1).compareTo(getCollationKey(c2));
+        }
+    };
+
+    private CountryNames(Locale locale) {
+        mLocale = locale;
+        mCollator = Collator.getInstance(locale);
+        //ignore case like the former compareToIgnoreCase, but keep accents apart
+        mCollator.setStrength(Collator.SECONDARY);
+        List<Country> countries = Countries.getAll();
+        for (int i = 0; i < countries.size(); i++) {
+            Country country = countries.get(i);
+            int index = Countries.codeIndex(country.getCode());
+            mNames[index] = new Locale("", country.getCode()).getDisplayCountry(locale);
+            mKeys[index] = mCollator.getCollationKey(mNames[index]);
+        }
+
+        Country[] sorted = countries.toArray(new Country[0]);
+        Arrays.sort(sorted, mComparator);
+        Arrays.fill(mPositions, -1);
+        for (int i = 0; i < sorted.length; i++)
+            mPositions[Countries.codeIndex(sorted[i].getCode())] = i;
+        mSorted = Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    /**
+     * Gets the names for the current default locale, building them if the locale changed since the
+     * last call. Only one thread builds them, a caller arriving meanwhile, e.g. the UI thread when
+     * the dropdown is touched during the background build, waits for that build instead of
+     * starting another one.
+     *
+     * @return the names for {@link Locale#getDefault()}
+     */
+    static CountryNames getInstance() {
+        Locale locale = Locale.getDefault();
+        CountryNames names = sCurrent;
+        if (names != null && names.mLocale.equals(locale))
+            return names;
+        synchronized (CountryNames.class) {
+            names = sCurrent;
+            if (names == null || !names.mLocale.equals(locale)) {
+                names = new CountryNames(locale);
+                sCurrent = names;
+            }
+            return names;
+        }
+    }
+
+    String getDisplayName(Country country) {
+        int index = Countries.codeIndex(country.getCode());
+        if (index == -1 || mNames[index] == null)
+            return new Locale("", country.getCode()).getDisplayCountry(mLocale);
+        return mNames[index];
+    }
+
+    CollationKey getCollationKey(Country country) {
+        int index = Countries.codeIndex(country.getCode());
+        if (index == -1 || mKeys[index] == null) {
+            //countries outside of the registry are not cached, Collator is not thread-safe
+            synchronized (mCollator) {
+                return mCollator.getCollationKey(getDisplayName(country));
+            }
+        }
+        return mKeys[index];
+    }
+
+    /**
+     * Gets all countries sorted by their display name in this locale.
+     *
+     * @return an unmodifiable list shared by all callers
+     */
+    List<Country> getSortedCountries() {
+        return mSorted;
+    }
+
+    /**
+     * Gets the position of a country in {@link #getSortedCountries()}.
+     *
+     * @param country the country
+     * @return the position or -1 if the country is not part of the registry
+     */
+    int getPosition(Country country) {
+        if (country == null)
+            return -1;
+        int index = Countries.codeIndex(country.getCode());
+        if (index == -1 || mPositions[index] == -1 || mSorted.get(mPositions[index]) != country)
+            return -1;
+        return mPositions[index];
+    }
+
+    /**
+     * Gets a comparator ordering countries by their display name in this locale.
+     *
+     * @return the comparator
+     */
+    Comparator<Country> getComparator() {
+        return mComparator;
+    }
+
+    /**
+     * Gets the search index over the names in this locale, building it on the first call.
+     *
+     * @return the index
+     */
+    CountrySearchIndex getSearchIndex() {
+        CountrySearchIndex index = mSearchIndex;
+        if (index == null) {
+            index = new CountrySearchIndex(this);
+            mSearchIndex = index;
+        }
+        return index;
+    }
+}
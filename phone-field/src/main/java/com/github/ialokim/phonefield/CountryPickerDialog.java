@@ -0,0 +1,99 @@
+package com.github.ialokim.phonefield;
+
+import android.app.AlertDialog;
+import android.content.Context;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.KeyEvent;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.WindowManager;
+import android.view.inputmethod.EditorInfo;
+import android.widget.AdapterView;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import io.github.subhamtyagi.phone.R;
+
+/**
+ * Dialog replacing the country dropdown of a {@link PhoneField} when searchable countries are
+ * enabled. The list reuses the dropdown rows and is filtered on every keystroke of the search field
+ * through the {@link CountrySearchIndex} of the current locale.
+ */
+final class CountryPickerDialog {
+
+    /**
+     * Receives the country the user picked.
+     */
+    interface Listener {
+
+        void onCountryPicked(Country country);
+    }
+
+    private CountryPickerDialog() {
+    }
+
+    /**
+     * Shows the picker.
+     *
+     * @param context    the context of the field
+     * @param names      the names for the current locale
+     * @param emojiFlags whether the flags are drawn as emoji
+     * @param listener   called when a country was picked, not when the dialog was cancelled
+     * @return the shown dialog
+     */
+    static AlertDialog show(Context context, CountryNames names, boolean emojiFlags, final Listener listener) {
+        View view = LayoutInflater.from(context).inflate(R.layout.country_picker, null);
+        EditText search = (EditText) view.findViewById(R.id.search);
+        ListView list = (ListView) view.findViewById(R.id.countries);
+
+        final CountriesAdapter adapter = CountriesAdapter.createSearchable(context, names);
+        adapter.setEmojiFlags(emojiFlags);
+        list.setAdapter(adapter);
+
+        final AlertDialog dialog = new AlertDialog.Builder(context)
+                .setView(view)
+                .setNegativeButton(android.R.string.cancel, null)
+                .create();
+
+        search.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                adapter.setQuery(s);
+            }
+        });
+        search.setOnEditorActionListener(new TextView.OnEditorActionListener() {
+            @Override
+            public boolean onEditorAction(TextView v, int actionId, KeyEvent event) {
+                //the keyboard action picks the best match
+                if (actionId == EditorInfo.IME_ACTION_DONE && adapter.getCount() > 0) {
+                    dialog.dismiss();
+                    listener.onCountryPicked(adapter.getItem(0));
+                    return true;
+                }
+                return false;
+            }
+        });
+        list.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                dialog.dismiss();
+                listener.onCountryPicked(adapter.getItem(position));
+            }
+        });
+
+        dialog.getWindow().setSoftInputMode(WindowManager.LayoutParams.SOFT_INPUT_STATE_VISIBLE
+                | WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE);
+        dialog.show();
+        return dialog;
+    }
+}
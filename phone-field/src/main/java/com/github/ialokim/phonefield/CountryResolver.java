@@ -0,0 +1,142 @@
+package com.github.ialokim.phonefield;
+
+import java.util.List;
+
+/**
+ * Precomputed lookup from a dial code and a national number to the matching {@link Country}.
+ * <p>
+ * For every dial code the known area codes are stored in a small digit trie, so resolving a
+ * number walks at most as many digits as the longest area code and never allocates. A country
+ * wins if it comes first among all candidates: countries whose area code prefixes the number,
+ * and countries that fall back to their priority flag because they have no area codes or the
+ * number is shorter than all of them.
+ */
+final class CountryResolver {
+
+    private static final int MAX_DIAL_CODE = 999;
+
+    private static CountryResolver sInstance;
+
+    private final Group[] mGroups = new Group[MAX_DIAL_CODE + 1];
+
+    private CountryResolver() {
+        for (int dialCode = 0; dialCode <= MAX_DIAL_CODE; dialCode++) {
+            List<Country> countries = Countries.get(dialCode);
+            if (!countries.isEmpty())
+                mGroups[dialCode] = new Group(countries);
+        }
+    }
+
+    static synchronized CountryResolver getInstance() {
+        if (sInstance == null)
+            sInstance = new CountryResolver();
+        return sInstance;
+    }
+
+    /**
+     * Finds the country a national number belongs to.
+     *
+     * @param dialCode       the country calling code, e.g. 1 or 44
+     * @param nationalNumber the national significant number as returned by libphonenumber
+     * @param leadingZeros   the number of zeros in front of the national number, e.g. 1 for Italy
+     * @return the matching country or {@code null} if the dial code is unknown or nothing matches
+     */
+    Country resolve(int dialCode, long nationalNumber, int leadingZeros) {
+        if (dialCode < 0 || dialCode > MAX_DIAL_CODE)
+            return null;
+        Group group = mGroups[dialCode];
+        return group == null ? null : group.resolve(nationalNumber, leadingZeros);
+    }
+
+    /**
+     * All countries sharing one dial code.
+     */
+    private static final class Group {
+
+        private static final int NONE = Integer.MAX_VALUE;
+
+        private final Country[] mCountries;
+
+        /**
+         * Index of the first fallback candidate by digit count of the number, the last slot is
+         * used for every number at least as long as the longest area code.
+         */
+        private final int[] mFallback;
+
+        /**
+         * Trie over area code digits, ten child slots per node, node 0 is the root.
+         */
+        private final int[] mChildren;
+
+        /**
+         * Index of the first country owning the area code that ends at a node.
+         */
+        private final int[] mOwner;
+
+        Group(List<Country> countries) {
+            mCountries = countries.toArray(new Country[0]);
+
+            int maxLength = 0;
+            int nodes = 1;
+            for (Country country : mCountries) {
+                maxLength = Math.max(maxLength, country.getMaxAreaCodeLength());
+                nodes += country.getAreaCodes().length * country.getMaxAreaCodeLength();
+            }
+
+            mFallback = new int[maxLength + 1];
+            for (int digits = 0; digits <= maxLength; digits++) {
+                mFallback[digits] = NONE;
+                for (int i = 0; i < mCountries.length; i++) {
+                    Country country = mCountries[i];
+                    if (country.getMinAreaCodeLength() <= digits && country.getMinAreaCodeLength() > 0)
+                        continue;
+                    if (country.hasPriority()) {
+                        mFallback[digits] = i;
+                        break;
+                    }
+                }
+            }
+
+            int[] children = new int[nodes * 10];
+            int[] owner = new int[nodes];
+            owner[0] = NONE;
+            int used = 1;
+            for (int i = 0; i < mCountries.length; i++) {
+                for (int areaCode : mCountries[i].getAreaCodes()) {
+                    int length = Country.digitCount(areaCode) - 1;
+                    int node = 0;
+                    for (int d = 0; d < length; d++) {
+                        int slot = node * 10 + (int) (areaCode / Country.POW10[length - 1 - d] % 10);
+                        if (children[slot] == 0) {
+                            owner[used] = NONE;
+                            children[slot] = used++;
+                        }
+                        node = children[slot];
+                    }
+                    if (owner[node] == NONE)
+                        owner[node] = i;
+                }
+            }
+            mChildren = children;
+            mOwner = owner;
+        }
+
+        Country resolve(long nationalNumber, int leadingZeros) {
+            int numberDigits = Country.digitCount(nationalNumber);
+            int digits = leadingZeros + numberDigits;
+            int depth = Math.min(digits, mFallback.length - 1);
+            int best = mFallback[depth];
+            int node = 0;
+            for (int d = 0; d < depth; d++) {
+                int digit = d < leadingZeros ? 0
+                        : (int) (nationalNumber / Country.POW10[digits - 1 - d] % 10);
+                node = mChildren[node * 10 + digit];
+                if (node == 0)
+                    break;
+                if (mOwner[node] < best)
+                    best = mOwner[node];
+            }
+            return best == NONE ? null : mCountries[best];
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.ialokim.phonefield;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix index over the names and codes of all countries for one locale, behind the search of the
+ * country picker.
+ * <p>
+ * Every country is found by a few keys: each word of its name in the locale and in English, its ISO
+ * code, and its dial code, also followed by each of its area codes when it shares the dial code
+ * with other countries, so "1684" finds American Samoa. Names are folded to lower case without
+ * accents, so "cote" finds C&ocirc;te d'Ivoire. The keys are sorted once, a query is a binary
+ * search for the first key it prefixes and a scan over the following ones, instead of a pass over
+ * all countries for every keystroke.
+ */
+final class CountrySearchIndex {
+
+    /*
+     * What a key stands for.
+     */
+    private static final byte KIND_WORD = 0;
+    private static final byte KIND_START = 1;
+    private static final byte KIND_MAIN_DIAL_CODE = 2;
+
+    /*
+     * Order of the results, countries matching in several ways are listed with their best match.
+     * The main country of a dial code comes first, so "44" lists the United Kingdom before Jersey.
+     */
+    private static final byte MAIN = 0;
+    private static final byte EXACT = 1;
+    private static final byte PREFIX = 2;
+    private static final byte WORD = 3;
+    private static final byte NONE = 4;
+
+    private final List<Country> mSorted;
+
+    private final String[] mKeys;
+
+    /**
+     * Position in {@link #mSorted} of the country of each key.
+     */
+    private final short[] mPositions;
+
+    /**
+     * Whether a key is a later word of a name, starts a name or code, or is the dial code of the
+     * main country of that code.
+     */
+    private final byte[] mKinds;
+
+    private static final class Key {
+        final String mKey;
+        final short mPosition;
+        final byte mKind;
+
+        Key(String key, int position, byte kind) {
+            mKey = key;
+            mPosition = (short) position;
+            mKind = kind;
+        }
+    }
+
+    CountrySearchIndex(CountryNames names) {
+        mSorted = names.getSortedCountries();
+        List<Key> keys = new ArrayList<>(mSorted.size() * 6);
+        for (int position = 0; position < mSorted.size(); position++) {
+            Country country = mSorted.get(position);
+            addWords(keys, fold(names.getDisplayName(country)), position);
+            String english = new Locale("", country.getCode()).getDisplayCountry(Locale.ENGLISH);
+            addWords(keys, fold(english), position);
+            keys.add(new Key(country.getCode().toLowerCase(Locale.ROOT), position, KIND_START));
+
+            String dialCode = country.getDialCode();
+            keys.add(new Key(dialCode, position, country.hasPriority() ? KIND_MAIN_DIAL_CODE : KIND_START));
+            //the main country of a dial code is the fallback for all numbers, its area codes would
+            //only repeat those of the others
+            if (!country.hasPriority()) {
+                for (int areaCode : country.getAreaCodes())
+                    keys.add(new Key(dialCode + String.valueOf(areaCode).substring(1), position, KIND_START));
+            }
+        }
+
+        Collections.sort(keys, new Comparator<Key>() {
+            @Override
+            public int compare(Key k1, Key k2) {
+                return k1.mKey.compareTo(k2.mKey);
+            }
+        });
+        mKeys = new String[keys.size()];
+        mPositions = new short[keys.size()];
+        mKinds = new byte[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            mKeys[i] = key.mKey;
+            mPositions[i] = key.mPosition;
+            mKinds[i] = key.mKind;
+        }
+    }
+
+    /**
+     * Adds the whole name and every later word of it, so a query may start at any word.
+     */
+    private static void addWords(List<Key> keys, String name, int position) {
+        if (name.isEmpty())
+            return;
+        keys.add(new Key(name, position, KIND_START));
+        for (int i = name.indexOf(' '); i != -1; i = name.indexOf(' ', i + 1))
+            keys.add(new Key(name.substring(i + 1), position, KIND_WORD));
+    }
+
+    /**
+     * Finds the countries matching a query, which is either text matched against the names and
+     * ISO codes or digits matched against the dial codes, e.g. "ger", "de", "49" or "+1 684".
+     *
+     * @param query the text typed into the search field
+     * @return the matching countries, exact matches first, then those whose name or code starts
+     * with the query, then those with a later word starting with it, each group in the order of
+     * {@link CountryNames#getSortedCountries()} except for the main country of a dial code
+     */
+    List<Country> search(CharSequence query) {
+        String key = isDialCode(query) ? digits(query) : fold(query);
+        if (key.isEmpty())
+            return mSorted;
+
+        byte[] ranks = new byte[mSorted.size()];
+        Arrays.fill(ranks, NONE);
+        int matches = 0;
+        for (int i = lowerBound(key); i < mKeys.length && mKeys[i].startsWith(key); i++) {
+            byte rank;
+            if (mKinds[i] == KIND_WORD)
+                rank = WORD;
+            else if (mKeys[i].length() != key.length())
+                rank = PREFIX;
+            else
+                rank = mKinds[i] == KIND_MAIN_DIAL_CODE ? MAIN : EXACT;
+            int position = mPositions[i];
+            if (ranks[position] == NONE)
+                matches++;
+            if (rank < ranks[position])
+                ranks[position] = rank;
+        }
+
+        List<Country> result = new ArrayList<>(matches);
+        for (byte rank = MAIN; rank < NONE && result.size() < matches; rank++) {
+            for (int position = 0; position < ranks.length; position++) {
+                if (ranks[position] == rank)
+                    result.add(mSorted.get(position));
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = mKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mKeys[middle].compareTo(key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether a query only consists of a dial code and separators.
+     */
+    private static boolean isDialCode(CharSequence query) {
+        boolean digits = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits = true;
+            else if (c != '+' && c != ' ' && c != '-' && c != '(' && c != ')')
+                return false;
+        }
+        return digits;
+    }
+
+    private static String digits(CharSequence query) {
+        StringBuilder digits = new StringBuilder(query.length());
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits.append(c);
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Folds text to lower case without accents, with every run of punctuation and spaces replaced
+     * by a single space, e.g. "C&ocirc;te d&rsquo;Ivoire" becomes "cote d ivoire".
+     */
+    static String fold(CharSequence text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK)
+                continue;
+            if (Character.isLetterOrDigit(c)) {
+                folded.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                folded.append(' ');
+                space = true;
+            }
+        }
+        int length = folded.length();
+        if (length > 0 && folded.charAt(length - 1) == ' ')
+            folded.setLength(length - 1);
+        return folded.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.ialokim.phonefield;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+/**
+ * Drawable that renders a country flag as a pair of Unicode regional indicator symbols instead of
+ * decoding a bitmap. One instance is kept per row and switched between countries with
+ * {@link #setCountry(Country)}.
+ */
+public class EmojiFlagDrawable extends Drawable {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SUPPORTED = 1;
+    private static final byte UNSUPPORTED = 2;
+
+    /**
+     * Whether the default font has a glyph for a flag, indexed like {@link Countries#getByCode(String)}.
+     */
+    private static final byte[] sSupport = new byte[Countries.CODE_INDEX_SIZE];
+
+    private static Paint sProbe;
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint.FontMetrics mMetrics = new Paint.FontMetrics();
+
+    private String mEmoji;
+
+    public EmojiFlagDrawable() {
+        mPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * Checks whether the flag of a country can be drawn with the default font.
+     *
+     * @param country the country
+     * @return {@code false} if the font has no glyph for the flag or this cannot be checked
+     */
+    public static boolean canRender(Country country) {
+        if (Build.VERSION.SDK_INT < 23)
+            return false;
+        int index = Countries.codeIndex(country.getCode());
+        if (index == -1)
+            return false;
+        synchronized (sSupport) {
+            if (sSupport[index] == UNKNOWN) {
+                if (sProbe == null)
+                    sProbe = new Paint();
+                sSupport[index] = sProbe.hasGlyph(country.getFlagEmoji()) ? SUPPORTED : UNSUPPORTED;
+            }
+            return sSupport[index] == SUPPORTED;
+        }
+    }
+
+    /**
+     * Switches the flag to another country.
+     *
+     * @param country the country
+     */
+    public void setCountry(Country country) {
+        String emoji = country.getFlagEmoji();
+        if (!emoji.equals(mEmoji)) {
+            mEmoji = emoji;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        mPaint.setTextSize(bounds.height() * 0.8f);
+        mPaint.getFontMetrics(mMetrics);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mEmoji == null)
+            return;
+        Rect bounds = getBounds();
+        float baseline = bounds.exactCenterY() - (mMetrics.ascent + mMetrics.descent) / 2;
+        canvas.drawText(mEmoji, bounds.exactCenterX(), baseline, mPaint);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
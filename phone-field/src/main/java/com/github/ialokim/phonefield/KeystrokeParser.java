@@ -0,0 +1,73 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+/**
+ * Parsing behind the TextWatcher of a {@link PhoneField}, which runs for every keystroke.
+ * <p>
+ * The text is parsed straight from the {@code Editable} into a reused number, so typing does not
+ * copy it. It is kept free of Android classes, so the allocation test runs the same code as the
+ * field.
+ */
+final class KeystrokeParser {
+
+    private final PhoneNumberUtil mPhoneUtil = PhoneNumberUtil.getInstance();
+
+    private final Phonenumber.PhoneNumber mParsedNumber = new Phonenumber.PhoneNumber();
+
+    private final LatencyHistogram mLatency;
+
+    /**
+     * @param latency the histogram of the parse stage or {@code null}
+     */
+    KeystrokeParser(LatencyHistogram latency) {
+        mLatency = latency;
+    }
+
+    /**
+     * Parses the text of an edit and records the time as parse stage.
+     *
+     * @param text          the text of the field
+     * @param defaultRegion the region of numbers without international prefix
+     * @return the parsed number, which is reused by the next call
+     * @throws NumberParseException if the text is no phone number (yet)
+     */
+    Phonenumber.PhoneNumber parse(CharSequence text, String defaultRegion) throws NumberParseException {
+        long span = PhoneFieldTrace.beginTimed(PhoneFieldTrace.PARSE);
+        try {
+            mParsedNumber.clear();
+            mPhoneUtil.parse(text, defaultRegion, mParsedNumber);
+            return mParsedNumber;
+        } finally {
+            PhoneFieldTrace.end(PhoneFieldTrace.PARSE, span, mLatency);
+        }
+    }
+
+    /**
+     * Finds the country of the text after a keystroke.
+     *
+     * @param text          the text of the field
+     * @param defaultRegion the region of numbers without international prefix
+     * @return the country or {@code null} if the text cannot be parsed yet or matches no country
+     */
+    Country resolve(CharSequence text, String defaultRegion) {
+        try {
+            return Countries.resolve(parse(text, defaultRegion));
+        } catch (NumberParseException ignored) {
+            //incomplete input while typing
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the text starts with 00, which the field replaces by +.
+     *
+     * @param text the text of the field
+     * @return whether the text starts with the international prefix
+     */
+    static boolean startsWithInternationalPrefix(CharSequence text) {
+        return text.length() >= 2 && text.charAt(0) == '0' && text.charAt(1) == '0';
+    }
+}
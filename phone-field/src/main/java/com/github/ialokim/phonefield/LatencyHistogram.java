@@ -0,0 +1,133 @@
+package com.github.ialokim.phonefield;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds.
+ * <p>
+ * Values are counted in buckets that split every power of two into {@value #SUB_BUCKETS} equal
+ * parts, so a percentile is reported at most 12.5% above the true value while the whole range of a
+ * {@code long} fits into a few hundred counters. Recording neither allocates nor grows, so it can
+ * stay enabled on the typing path of release builds.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each, every exponent above adds a row.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final int[] mCounts = new int[BUCKETS];
+
+    private long mCount;
+
+    private long mMax;
+
+    /**
+     * Records a duration, from any thread.
+     *
+     * @param nanos the duration in nanoseconds, negative values count as zero
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        mCounts[bucketOf(nanos)]++;
+        mCount++;
+        if (nanos > mMax)
+            mMax = nanos;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the count
+     */
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the maximum in nanoseconds or 0 if nothing was recorded
+     */
+    public synchronized long getMax() {
+        return mMax;
+    }
+
+    /**
+     * Gets the duration below or at which the given share of the recorded durations lies.
+     *
+     * @param percentile the share, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, never more than
+     * {@link #getMax()}, or 0 if nothing was recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (mCount == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * mCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += mCounts[bucket];
+            if (seen >= rank)
+                return Math.min(upperBound(bucket), mMax);
+        }
+        return mMax;
+    }
+
+    /**
+     * Drops all recorded durations.
+     */
+    public synchronized void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mMax = 0;
+    }
+
+    /**
+     * Prints the count, p50, p99 and maximum in microseconds on one line.
+     *
+     * @param writer the writer, e.g. the one passed to {@code Activity.dump()}
+     * @param prefix the indentation
+     * @param name   the name of the measured stage
+     */
+    public synchronized void dump(PrintWriter writer, String prefix, String name) {
+        writer.print(prefix);
+        writer.print(name);
+        writer.print(": count=");
+        writer.print(mCount);
+        writer.print(" p50=");
+        writer.print(toMicros(getPercentile(50)));
+        writer.print("us p99=");
+        writer.print(toMicros(getPercentile(99)));
+        writer.print("us max=");
+        writer.print(toMicros(mMax));
+        writer.println("us");
+    }
+
+    private static String toMicros(long nanos) {
+        return nanos / 1000 + "." + nanos % 1000 / 100;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -1,13 +1,17 @@
 package com.github.ialokim.phonefield;
 
+import android.app.AlertDialog;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.ActionMode;
+import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.MotionEvent;
@@ -22,10 +26,11 @@ import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.Phonenumber;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.io.PrintWriter;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import androidx.annotation.IdRes;
 
@@ -40,6 +45,19 @@ import io.github.subhamtyagi.phone.R;
  */
 public abstract class PhoneField extends LinearLayout {
 
+    /**
+     * Delay after the last keystroke before the number is parsed in async mode.
+     */
+    private static final long PARSE_DELAY_MS = 100;
+
+    private static ExecutorService sParseExecutor;
+
+    /**
+     * Delivers the results of the background work. {@link View#post} is not used from there, below
+     * API 24 it drops runnables posted to a view that is not attached yet.
+     */
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
     private Spinner mSpinner;
 
     private CountriesAdapter mAdapter;
@@ -54,10 +72,43 @@ public abstract class PhoneField extends LinearLayout {
 
     private boolean mAutoFill = false;
     private boolean mAutoFormat = false;
-    private int mDefaultCountryPosition = -1;
+    private Country mDefaultCountry;
 
     private boolean isPasting = false;
 
+    private boolean mAsyncParsing = false;
+
+    private boolean mSearchableCountries = false;
+
+    private AlertDialog mCountryPicker;
+
+    /**
+     * Incremented on every text change, parse results of an older generation are dropped.
+     */
+    private int mParseGeneration;
+
+    private final StringBuilder mPendingInput = new StringBuilder();
+
+    /*
+     * Latency of each stage of an edit, kept for the lifetime of the field, see dumpLatency().
+     */
+    private final LatencyHistogram mParseLatency = new LatencyHistogram();
+    private final LatencyHistogram mCountryLatency = new LatencyHistogram();
+    private final LatencyHistogram mFormatLatency = new LatencyHistogram();
+    private final LatencyHistogram mSetTextLatency = new LatencyHistogram();
+
+    /**
+     * Parses the text on every keystroke while parsing is synchronous.
+     */
+    private final KeystrokeParser mKeystrokeParser = new KeystrokeParser(mParseLatency);
+
+    private final Runnable mParseTask = new Runnable() {
+        @Override
+        public void run() {
+            parseInBackground(mPendingInput.toString(), mParseGeneration);
+        }
+    };
+
     /**
      * Instantiates a new Phone field.
      *
@@ -86,10 +137,18 @@ public abstract class PhoneField extends LinearLayout {
      */
     public PhoneField(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        long span = PhoneFieldTrace.begin(PhoneFieldTrace.INFLATE);
         inflate(getContext(), getLayoutResId(), this);
         updateLayoutAttributes();
+        PhoneFieldTrace.end(PhoneFieldTrace.INFLATE, span);
+
+        span = PhoneFieldTrace.begin(PhoneFieldTrace.PREPARE_VIEW);
         prepareView();
+        PhoneFieldTrace.end(PhoneFieldTrace.PREPARE_VIEW, span);
+
+        span = PhoneFieldTrace.begin(PhoneFieldTrace.APPLY_ATTRS);
         applyAttrs(attrs);
+        PhoneFieldTrace.end(PhoneFieldTrace.APPLY_ATTRS, span);
     }
     /**
      * Prepare view.
@@ -102,20 +161,51 @@ public abstract class PhoneField extends LinearLayout {
             throw new IllegalStateException("Please provide a valid xml layout");
         }
 
-        mAdapter = new CountriesAdapter(getContext(), getCountriesAsList());
-        mAdapter.sort(new Comparator<Country>() {
+        //the closed spinner only shows the flag of the selected country, the sorted list of all
+        //countries is swapped in when it is ready or at the latest when the dropdown opens
+        mAdapter = CountriesAdapter.createLazy(getContext(), null);
+        getParseExecutor().execute(new Runnable() {
             @Override
-            public int compare(Country c1, Country c2) {
-                return c1.getDisplayName().compareToIgnoreCase(c2.getDisplayName());
+            public void run() {
+                final CountryNames names = getCountryNames();
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        loadCountries(names);
+                    }
+                });
             }
         });
         mSpinner.setOnTouchListener(new OnTouchListener() {
             @Override
             public boolean onTouch(View v, MotionEvent event) {
+                if (mSearchableCountries) {
+                    //the picker replaces the dropdown, which would otherwise open on the same touch
+                    if (event.getAction() == MotionEvent.ACTION_UP)
+                        showCountryPicker();
+                    return true;
+                }
+                if (event.getAction() == MotionEvent.ACTION_DOWN)
+                    loadCountries(getCountryNames());
                 hideKeyboard();
                 return false;
             }
         });
+        mSpinner.setOnKeyListener(new OnKeyListener() {
+            @Override
+            public boolean onKey(View v, int keyCode, KeyEvent event) {
+                if (keyCode != KeyEvent.KEYCODE_DPAD_CENTER && keyCode != KeyEvent.KEYCODE_ENTER)
+                    return false;
+                if (mSearchableCountries) {
+                    if (event.getAction() == KeyEvent.ACTION_UP)
+                        showCountryPicker();
+                    return true;
+                }
+                if (event.getAction() == KeyEvent.ACTION_DOWN)
+                    loadCountries(getCountryNames());
+                return false;
+            }
+        });
 
         final TextWatcher textWatcher = new TextWatcher() {
             @Override
@@ -135,45 +225,66 @@ public abstract class PhoneField extends LinearLayout {
                 if (mAutoFormat && mPhoneNumberFormatterTextWatcher.mSelfChange)
                     return;
 
-                String rawNumber = s.toString();
-                if (rawNumber.isEmpty()) {
+                //typing runs through here for every keystroke, so it works on the Editable and
+                //reusable buffers, the text is only copied when pasting or rewriting it
+                mParseGeneration++;
+                if (s.length() == 0) {
+                    removeCallbacks(mParseTask);
                     selectDefaultCountry();
-                } else {
+                } else if (isPasting) {
+                    removeCallbacks(mParseTask);
+                    String rawNumber = s.toString();
                     try {
                         //try to extract phone number information from rawNumber (which can be any string)
-                        Phonenumber.PhoneNumber number = parsePhoneNumber(rawNumber);
+                        Phonenumber.PhoneNumber number = mKeystrokeParser.parse(rawNumber, getDefaultRegion());
                         selectCountry(number);
-                        if (isPasting) {
-                            //format the number as international number (+49 ...) or as national number
-                            if (mAutoFill)
-                                rawNumber = mPhoneUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.E164);
-                            else {
-                                String leadingZeros = new String(new char[number.getNumberOfLeadingZeros()]).replace('\0', '0');
-                                rawNumber = String.valueOf(leadingZeros + number.getNationalNumber());
-                            }
+                        //format the number as international number (+49 ...) or as national number
+                        if (mAutoFill)
+                            rawNumber = mPhoneUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.E164);
+                        else {
+                            StringBuilder nationalNumber = new StringBuilder();
+                            for (int i = 0; i < number.getNumberOfLeadingZeros(); i++)
+                                nationalNumber.append('0');
+                            rawNumber = nationalNumber.append(number.getNationalNumber()).toString();
                         }
                     } catch (NumberParseException ignored) {
                         Log.d(PhoneField.class.getName(), ignored.toString());
                     }
-                    if (isPasting) {
-                        //when pasting, we already tried to parse the string to a phone number, so set it now
-                        isPasting = false;
-                        mEditText.removeTextChangedListener(this);
-                        if (mAutoFormat)
-                            mPhoneNumberFormatterTextWatcher.mIgnore = false;
-                        mEditText.setText(rawNumber);
-                        mEditText.addTextChangedListener(this);
-                        mEditText.setSelection(mEditText.length());
-                    }
-                    if (rawNumber.startsWith("00")) {
-                        rawNumber = rawNumber.replaceFirst("00", "+"); //todo: only valid for Europe??
-                        mEditText.removeTextChangedListener(this);
-                        mEditText.setText(rawNumber);
-                        mEditText.addTextChangedListener(this);
-                        mEditText.setSelection(1);
+                    //when pasting, we already tried to parse the string to a phone number, so set it now
+                    isPasting = false;
+                    mEditText.removeTextChangedListener(this);
+                    if (mAutoFormat)
+                        mPhoneNumberFormatterTextWatcher.mIgnore = false;
+                    replaceText(rawNumber);
+                    mEditText.addTextChangedListener(this);
+                    mEditText.setSelection(mEditText.length());
+                    if (KeystrokeParser.startsWithInternationalPrefix(rawNumber))
+                        replaceInternationalPrefix(rawNumber);
+                } else {
+                    if (mAsyncParsing) {
+                        //coalesce fast typing, only the text after the last keystroke is parsed
+                        mPendingInput.setLength(0);
+                        mPendingInput.append(s);
+                        removeCallbacks(mParseTask);
+                        postDelayed(mParseTask, PARSE_DELAY_MS);
+                    } else {
+                        removeCallbacks(mParseTask);
+                        Country country = mKeystrokeParser.resolve(s, getDefaultRegion());
+                        if (country != null)
+                            selectCountry(country);
                     }
+                    if (KeystrokeParser.startsWithInternationalPrefix(s))
+                        replaceInternationalPrefix(s.toString());
                 }
             }
+
+            private void replaceInternationalPrefix(String rawNumber) {
+                rawNumber = "+" + rawNumber.substring(2); //todo: only valid for Europe??
+                mEditText.removeTextChangedListener(this);
+                replaceText(rawNumber);
+                mEditText.addTextChangedListener(this);
+                mEditText.setSelection(1);
+            }
         };
 
         mEditText.addTextChangedListener(textWatcher);
@@ -225,17 +336,17 @@ public abstract class PhoneField extends LinearLayout {
                 if (rawInput.startsWith("+") || rawInput.length() == 0) {
                     if (mAutoFill) {
                         String dialCode = mCountry.getDialCode(true);
-                        mEditText.setText(dialCode);
+                        replaceText(dialCode);
                         mEditText.setSelection(dialCode.length());
                     } else {
                         mEditText.removeTextChangedListener(textWatcher);
-                        mEditText.setText("");
+                        replaceText("");
                         mEditText.addTextChangedListener(textWatcher);
                     }
                 } else if (mAutoFormat) {
                     //trigger reformat using the newly selected country
                     mEditText.removeTextChangedListener(textWatcher);
-                    mEditText.setText(rawInput);
+                    replaceText(rawInput);
                     mEditText.setSelection(mEditText.getText().length());
                     mEditText.addTextChangedListener(textWatcher);
                 }
@@ -255,74 +366,147 @@ public abstract class PhoneField extends LinearLayout {
         String defaultCountry = ta.getString(R.styleable.PhoneField_defaultCountry);
         boolean autoFill = ta.getBoolean(R.styleable.PhoneField_autoFill, false);
         boolean autoFormat = ta.getBoolean(R.styleable.PhoneField_autoFormat, false);
+        boolean emojiFlags = ta.getBoolean(R.styleable.PhoneField_emojiFlags, false);
+        boolean asyncParsing = ta.getBoolean(R.styleable.PhoneField_asyncParsing, false);
+        boolean lazyCountries = ta.getBoolean(R.styleable.PhoneField_lazyCountries, false);
+        boolean searchableCountries = ta.getBoolean(R.styleable.PhoneField_searchableCountries, false);
+        if (!lazyCountries)
+            loadCountries(getCountryNames());
         if (hint != -1)
             setHint(hint);
         if (defaultCountry != null)
             setDefaultCountry(defaultCountry);
         else {
             //if no defaultCountry is specified, select the one from the current Locale
-            Country locale = mAdapter.getItem(getCountryPosition(Locale.getDefault().getCountry()));
-            selectCountry(locale);
+            Country locale = Countries.getByCode(Locale.getDefault().getCountry());
+            if (locale != null)
+                selectCountry(locale);
         }
         if (autoFill)
             setAutoFill(autoFill);
         if (autoFormat)
             setAutoFormat(autoFormat);
+        if (emojiFlags)
+            setEmojiFlags(emojiFlags);
+        if (asyncParsing)
+            setAsyncParsing(asyncParsing);
+        if (searchableCountries)
+            setSearchableCountries(searchableCountries);
         ta.recycle();
     }
 
+    /**
+     * Parses the text for the getters. These calls are no edits, so unlike
+     * {@link KeystrokeParser#parse(CharSequence, String)} they are not recorded as parse stage.
+     */
     private Phonenumber.PhoneNumber parsePhoneNumber(String number) throws NumberParseException {
-        String defaultRegion = mCountry != null ? mCountry.getCode().toUpperCase() : "";
-        return mPhoneUtil.parseAndKeepRawInput(number, defaultRegion);
+        return mPhoneUtil.parseAndKeepRawInput(number, getDefaultRegion());
+    }
+
+    /**
+     * Parses a number on the shared background thread and selects its country on the UI thread,
+     * unless the text or the country changed in the meantime.
+     */
+    private void parseInBackground(final String rawNumber, final int generation) {
+        final String defaultRegion = getDefaultRegion();
+        getParseExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Country country = null;
+                long span = PhoneFieldTrace.beginTimed(PhoneFieldTrace.PARSE);
+                try {
+                    country = Countries.resolve(mPhoneUtil.parseAndKeepRawInput(rawNumber, defaultRegion));
+                } catch (NumberParseException ignored) {
+                    Log.d(PhoneField.class.getName(), ignored.toString());
+                } finally {
+                    PhoneFieldTrace.end(PhoneFieldTrace.PARSE, span, mParseLatency);
+                }
+                final Country result = country;
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mParseGeneration || !defaultRegion.equals(getDefaultRegion()))
+                            return;
+                        if (result != null)
+                            selectCountry(result);
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getParseExecutor() {
+        if (sParseExecutor == null) {
+            sParseExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "PhoneFieldParser");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sParseExecutor;
+    }
+
+    private String getDefaultRegion() {
+        return mCountry != null ? mCountry.getRegionCode() : "";
     }
 
     private void selectCountry(Phonenumber.PhoneNumber number) {
         if (number == null)
             return;
-        List<Country> l = Countries.COUNTRIES.get(number.getCountryCode());
-        if (l == null)
-            return;
-        for (Country country : l) {
-            if (country.containsNumber(number.getNationalNumber())) {
-                selectCountry(country);
-                return;
-            }
-        }
+        Country country = Countries.resolve(number);
+        if (country != null)
+            selectCountry(country);
     }
 
     private void selectCountry(Country country) {
+        long span = PhoneFieldTrace.beginTimed(PhoneFieldTrace.SELECT_COUNTRY);
         mCountry = country;
         if (mAutoFormat)
-            mPhoneNumberFormatterTextWatcher.setCountry(mCountry.getCode());
+            mPhoneNumberFormatterTextWatcher.setCountry(mCountry.getRegionCode());
+        mAdapter.setSelectedCountry(mCountry);
         mSpinner.setSelection(mAdapter.getPosition(mCountry));
+        PhoneFieldTrace.end(PhoneFieldTrace.SELECT_COUNTRY, span, mCountryLatency);
     }
 
     private void selectDefaultCountry() {
-        if (mDefaultCountryPosition != -1) {
-            selectCountry(mAdapter.getItem(mDefaultCountryPosition));
+        if (mDefaultCountry != null) {
+            selectCountry(mDefaultCountry);
         }
     }
 
-    private void hideKeyboard() {
-        ((InputMethodManager) getContext().getSystemService(
-                Context.INPUT_METHOD_SERVICE)).hideSoftInputFromWindow(mEditText.getWindowToken(), 0);
+    /**
+     * Replaces the text, timing the round-trip through all text watchers.
+     */
+    private void replaceText(CharSequence text) {
+        long span = PhoneFieldTrace.beginTimed(PhoneFieldTrace.SET_TEXT);
+        mEditText.setText(text);
+        PhoneFieldTrace.end(PhoneFieldTrace.SET_TEXT, span, mSetTextLatency);
     }
 
-    private List<Country> getCountriesAsList() {
-        List<Country> countries = new ArrayList<>();
-        for (List<Country> c : Countries.COUNTRIES.values()) {
-            countries.addAll(c);
-        }
-        return countries;
+    private static CountryNames getCountryNames() {
+        long span = PhoneFieldTrace.begin(PhoneFieldTrace.SORT_COUNTRIES);
+        CountryNames names = CountryNames.getInstance();
+        PhoneFieldTrace.end(PhoneFieldTrace.SORT_COUNTRIES, span);
+        return names;
     }
 
-    private int getCountryPosition(String countryCode) {
-        for (Country country : getCountriesAsList()) {
-            if (country.getCode().equalsIgnoreCase(countryCode)) {
-                return mAdapter.getPosition(country);
-            }
-        }
-        return -1;
+    /**
+     * Swaps the sorted list of all countries into a lazy adapter, keeping the selected country.
+     */
+    private void loadCountries(CountryNames names) {
+        if (mAdapter.isLoaded())
+            return;
+        mAdapter.setNames(names);
+        if (mCountry != null)
+            mSpinner.setSelection(mAdapter.getPosition(mCountry));
+    }
+
+    private void hideKeyboard() {
+        ((InputMethodManager) getContext().getSystemService(
+                Context.INPUT_METHOD_SERVICE)).hideSoftInputFromWindow(mEditText.getWindowToken(), 0);
     }
 
 
@@ -373,13 +557,15 @@ public abstract class PhoneField extends LinearLayout {
     }
 
     /**
-     * Sets default country.
+     * Sets default country. It is selected right away unless a number was entered already, which
+     * keeps its country, so the default may also arrive after the field was shown.
      *
      * @param countryCode the country code
      */
     public void setDefaultCountry(String countryCode) {
-        mDefaultCountryPosition = getCountryPosition(countryCode);
-        selectDefaultCountry();
+        mDefaultCountry = Countries.getByCode(countryCode);
+        if (mEditText.length() == 0)
+            selectDefaultCountry();
     }
 
     /**
@@ -389,7 +575,7 @@ public abstract class PhoneField extends LinearLayout {
      */
     public void setPhoneNumber(String rawNumber) {
         isPasting = true;
-        mEditText.setText(rawNumber);
+        replaceText(rawNumber);
     }
 
     /**
@@ -429,10 +615,95 @@ public abstract class PhoneField extends LinearLayout {
         mAutoFormat = autoFormat;
         if (mAutoFormat) {
             mPhoneNumberFormatterTextWatcher = new PhoneNumberFormattingTextWatcher();
+            mPhoneNumberFormatterTextWatcher.mLatency = mFormatLatency;
             mEditText.addTextChangedListener(mPhoneNumberFormatterTextWatcher);
         }
     }
 
+    /**
+     * Sets the emojiFlags property.
+     * <p>
+     * Emoji flags need no bitmap decoding, the flag atlas is only decoded on devices whose font
+     * cannot render a flag. The atlas is still packaged for those devices, apps that enable this
+     * everywhere should pass it to {@link PhoneFieldWarmup#start(Context, boolean, String...)} as
+     * well, so the atlas is not decoded ahead of time either.
+     *
+     * @param emojiFlags whether the flags should be drawn as emoji
+     */
+    public void setEmojiFlags(boolean emojiFlags) {
+        mAdapter.setEmojiFlags(emojiFlags);
+    }
+
+    /**
+     * Sets the asyncParsing property.
+     * <p>
+     * In async mode the country is detected on a background thread shortly after the user stopped
+     * typing, instead of parsing the whole number on the UI thread for every keystroke. Pasted
+     * numbers are still handled immediately, as they rewrite the text.
+     *
+     * @param asyncParsing whether typed numbers should be parsed in the background
+     */
+    public void setAsyncParsing(boolean asyncParsing) {
+        mAsyncParsing = asyncParsing;
+        if (!asyncParsing) {
+            removeCallbacks(mParseTask);
+            mParseGeneration++;
+        }
+    }
+
+    /**
+     * Sets the searchableCountries property.
+     * <p>
+     * A searchable field opens a dialog with a search box instead of the dropdown, matching the
+     * typed text against the country names in the current locale and in English, the ISO codes and
+     * the dial codes. The search index is built in the background as soon as this is enabled.
+     *
+     * @param searchableCountries whether tapping the flag opens the searchable picker
+     */
+    public void setSearchableCountries(boolean searchableCountries) {
+        mSearchableCountries = searchableCountries;
+        if (searchableCountries) {
+            getParseExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    getCountryNames().getSearchIndex();
+                }
+            });
+        }
+    }
+
+    /**
+     * Opens the searchable country picker, regardless of the searchableCountries property. The
+     * picked country is selected like one picked from the dropdown.
+     */
+    public void showCountryPicker() {
+        if (mCountryPicker != null && mCountryPicker.isShowing())
+            return;
+        hideKeyboard();
+        mCountryPicker = CountryPickerDialog.show(getContext(), getCountryNames(), mAdapter.isEmojiFlags(),
+                new CountryPickerDialog.Listener() {
+                    @Override
+                    public void onCountryPicked(Country country) {
+                        loadCountries(getCountryNames());
+                        int position = mAdapter.getPosition(country);
+                        if (position != -1)
+                            mSpinner.setSelection(position);
+                    }
+                });
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mCountryPicker != null) {
+            mCountryPicker.dismiss();
+            mCountryPicker = null;
+        }
+        //results arriving after the view is gone are dropped
+        removeCallbacks(mParseTask);
+        mParseGeneration++;
+    }
+
     /**
      * Gets raw input.
      *
@@ -447,6 +718,45 @@ public abstract class PhoneField extends LinearLayout {
         return mEditText.getText().toString();
     }
 
+    /**
+     * Gets the latencies of one stage of the edits in this field, recorded since it was created.
+     *
+     * @param stage {@link PhoneFieldTrace#PARSE}, {@link PhoneFieldTrace#SELECT_COUNTRY},
+     *              {@link PhoneFieldTrace#FORMAT} or {@link PhoneFieldTrace#SET_TEXT}
+     * @return the histogram or {@code null} for any other name
+     */
+    public LatencyHistogram getLatencyHistogram(String stage) {
+        switch (stage) {
+            case PhoneFieldTrace.PARSE:
+                return mParseLatency;
+            case PhoneFieldTrace.SELECT_COUNTRY:
+                return mCountryLatency;
+            case PhoneFieldTrace.FORMAT:
+                return mFormatLatency;
+            case PhoneFieldTrace.SET_TEXT:
+                return mSetTextLatency;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Prints p50, p99 and the maximum of every stage, meant to be called from
+     * {@code Activity.dump()} so that {@code adb shell dumpsys activity} shows them.
+     *
+     * @param writer the writer to print to
+     * @param prefix the indentation
+     */
+    public void dumpLatency(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println("PhoneField latency:");
+        String stagePrefix = prefix + "  ";
+        mParseLatency.dump(writer, stagePrefix, "parse");
+        mCountryLatency.dump(writer, stagePrefix, "country");
+        mFormatLatency.dump(writer, stagePrefix, "reformat");
+        mSetTextLatency.dump(writer, stagePrefix, "setText");
+    }
+
     /**
      * Sets or removes the error.
      *
@@ -0,0 +1,182 @@
+package com.github.ialokim.phonefield;
+
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Trace sections and timings around the phases of a {@link PhoneField}.
+ * <p>
+ * Every span is written as an {@link Trace} section, so it shows up in systrace and Perfetto next
+ * to the frames it delays, and is reported to the {@link Listener} if one is set. Apps can forward
+ * the spans to their own metrics to see which phase regresses, e.g. after a libphonenumber update.
+ * <p>
+ * Nothing is measured unless a trace is being recorded or a listener is set, a span then costs a
+ * field read and, from Android 10 on, {@link Trace#isEnabled()}. Older versions only have the hidden
+ * {@code Trace.isTagEnabled(long)}, which is looked up once by reflection like androidx.tracing
+ * does, tracing stays off if that fails. The spans of each edit are timed regardless, see
+ * {@link #beginTimed(String)}.
+ */
+public final class PhoneFieldTrace {
+
+    public static final String INFLATE = "PhoneField.inflate";
+    public static final String PREPARE_VIEW = "PhoneField.prepareView";
+    public static final String SORT_COUNTRIES = "PhoneField.sortCountries";
+    public static final String APPLY_ATTRS = "PhoneField.applyAttrs";
+    public static final String PARSE = "PhoneField.parsePhoneNumber";
+    public static final String SELECT_COUNTRY = "PhoneField.selectCountry";
+    public static final String FORMAT = "PhoneField.formatNumber";
+    public static final String SET_TEXT = "PhoneField.setText";
+    public static final String SEARCH_COUNTRIES = "PhoneField.searchCountries";
+
+    /**
+     * Receives the duration of every span.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a span ends, on the thread that ran it, which is not always the UI thread.
+         * It runs inside the measured code paths, so it should only record the value.
+         *
+         * @param name          one of the span names declared by {@link PhoneFieldTrace}
+         * @param durationNanos the duration in nanoseconds
+         */
+        void onSpan(String name, long durationNanos);
+    }
+
+    /**
+     * Returned by {@link #begin(String)} when the span is neither traced nor timed.
+     */
+    private static final long OFF = Long.MIN_VALUE;
+
+    private static volatile Listener sListener;
+
+    private PhoneFieldTrace() {
+    }
+
+    /**
+     * Sets the listener receiving the spans of all fields.
+     *
+     * @param listener the listener or {@code null} to stop timing
+     */
+    public static void setListener(Listener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Starts a span.
+     *
+     * @param name the name of the span
+     * @return the token to pass to {@link #end(String, long)}
+     */
+    static long begin(String name) {
+        boolean traced = isTracing();
+        if (!traced && sListener == null)
+            return OFF;
+        if (traced)
+            Trace.beginSection(name);
+        //the lowest bit tells end() whether a section was opened, the nanosecond it costs is noise
+        return (System.nanoTime() & ~1L) | (traced ? 1 : 0);
+    }
+
+    /**
+     * Starts a span that is timed even when nothing else is listening, for the
+     * {@link LatencyHistogram}s a {@link PhoneField} keeps of every edit.
+     *
+     * @param name the name of the span
+     * @return the token to pass to {@link #end(String, long, LatencyHistogram)}
+     */
+    static long beginTimed(String name) {
+        boolean traced = isTracing();
+        if (traced)
+            Trace.beginSection(name);
+        return (System.nanoTime() & ~1L) | (traced ? 1 : 0);
+    }
+
+    /**
+     * Ends a span, on the same thread that started it.
+     *
+     * @param name  the name of the span
+     * @param token the value returned by {@link #begin(String)}
+     */
+    static void end(String name, long token) {
+        end(name, token, null);
+    }
+
+    /**
+     * Ends a span and records its duration.
+     *
+     * @param name      the name of the span
+     * @param token     the value returned by {@link #beginTimed(String)}
+     * @param histogram the histogram of the stage or {@code null}
+     */
+    static void end(String name, long token, LatencyHistogram histogram) {
+        if (token == OFF)
+            return;
+        if ((token & 1) != 0)
+            Trace.endSection();
+        Listener listener = sListener;
+        if (listener == null && histogram == null)
+            return;
+        long duration = System.nanoTime() - (token & ~1L);
+        if (histogram != null)
+            histogram.record(duration);
+        if (listener != null)
+            listener.onSpan(name, duration);
+    }
+
+    private static boolean isTracing() {
+        if (Build.VERSION.SDK_INT >= 29)
+            return Trace.isEnabled();
+        if (Build.VERSION.SDK_INT < 18)
+            return false;
+        return AppTagCheck.INSTANCE.isEnabled();
+    }
+
+    /**
+     * Holds the check of the app tag below Android 10, which is only looked up when first used.
+     */
+    private static final class AppTagCheck {
+
+        static final TagCheck INSTANCE = new TagCheck(Trace.class);
+    }
+
+    /**
+     * Calls the hidden {@code isTagEnabled(long)} of a trace class with its {@code TRACE_TAG_APP},
+     * the way androidx.tracing does before Android 10.
+     * <p>
+     * The method and its boxed argument are looked up once, so a check runs on every span without
+     * allocating. The check is off if the lookup or a call fails.
+     */
+    static final class TagCheck {
+
+        private final Method mIsTagEnabled;
+
+        private final Object[] mArgs;
+
+        TagCheck(Class<?> traceClass) {
+            Method isTagEnabled = null;
+            Object[] args = null;
+            try {
+                args = new Object[]{traceClass.getField("TRACE_TAG_APP").getLong(null)};
+                isTagEnabled = traceClass.getMethod("isTagEnabled", long.class);
+            } catch (Exception e) {
+                Log.d(PhoneFieldTrace.class.getName(), "Unable to check whether tracing is enabled", e);
+            }
+            mIsTagEnabled = isTagEnabled;
+            mArgs = args;
+        }
+
+        boolean isEnabled() {
+            if (mIsTagEnabled == null)
+                return false;
+            try {
+                return (Boolean) mIsTagEnabled.invoke(null, mArgs);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.ialokim.phonefield;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Loads the data a {@link PhoneField} needs on a background thread before the user starts typing.
+ * <p>
+ * libphonenumber reads the metadata of a region the first time the region is used, and the country
+ * registry, the localized names and the flag atlas are built on first access as well. Doing this
+ * inside the first keystroke shows up as jank, so apps should call {@link #start(Context, String...)}
+ * as early as possible, e.g. from {@code Application.onCreate()}. Calling it again is cheap, regions
+ * that were already loaded are skipped.
+ */
+public final class PhoneFieldWarmup {
+
+    /**
+     * Short enough for {@link Log#isLoggable}, which rejects tags over 23 characters below API 24.
+     */
+    private static final String TAG = "PhoneFieldWarmup";
+
+    private static final Set<String> sRegions = new HashSet<>();
+
+    private PhoneFieldWarmup() {
+    }
+
+    /**
+     * Starts loading the metadata of the default region and the given regions in the background.
+     *
+     * @param context any context, only the application context is kept
+     * @param regions additional ISO 3166-1 alpha-2 codes, e.g. the last used region; empty or
+     *                unknown codes are ignored
+     */
+    public static void start(Context context, String... regions) {
+        start(context, false, regions);
+    }
+
+    /**
+     * Starts loading the metadata of the default region and the given regions in the background.
+     *
+     * @param context    any context, only the application context is kept
+     * @param emojiFlags whether the fields draw their flags as emoji, the flag atlas is not decoded
+     *                   then, it is only needed on devices whose font lacks the flags
+     * @param regions    additional ISO 3166-1 alpha-2 codes, e.g. the last used region; empty or
+     *                   unknown codes are ignored
+     */
+    public static void start(Context context, final boolean emojiFlags, String... regions) {
+        final Context appContext = context.getApplicationContext();
+        final List<String> pending = new ArrayList<>();
+        synchronized (sRegions) {
+            addPending(Locale.getDefault().getCountry(), pending);
+            for (String region : regions)
+                addPending(region, pending);
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                warmUp(appContext, emojiFlags, pending);
+            }
+        }, "PhoneFieldWarmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void addPending(String region, List<String> pending) {
+        if (region == null || region.length() != 2)
+            return;
+        region = region.toUpperCase(Locale.ROOT);
+        if (sRegions.add(region))
+            pending.add(region);
+    }
+
+    private static void warmUp(Context context, boolean emojiFlags, List<String> regions) {
+        long start = System.nanoTime();
+        PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+        for (String region : regions) {
+            if (!util.getSupportedRegions().contains(region))
+                continue;
+            //the example number runs the parsing and formatting patterns of the region once
+            Phonenumber.PhoneNumber example = util.getExampleNumber(region);
+            if (example == null)
+                continue;
+            String international = util.format(example, PhoneNumberUtil.PhoneNumberFormat.INTERNATIONAL);
+            AsYouTypeFormatter formatter = util.getAsYouTypeFormatter(region);
+            for (int i = 0; i < international.length(); i++)
+                formatter.inputDigit(international.charAt(i));
+        }
+
+        //these are built once per process (or locale) and shared by all fields
+        CountryResolver.getInstance();
+        CountryNames.getInstance();
+        if (!emojiFlags)
+            AtlasFlagDrawable.getAtlas(context.getResources());
+        if (Log.isLoggable(TAG, Log.DEBUG))
+            Log.d(TAG, "warmed up " + regions + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
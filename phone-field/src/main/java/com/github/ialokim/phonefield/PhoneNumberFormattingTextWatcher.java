@@ -16,12 +16,9 @@
 
 package com.github.ialokim.phonefield;
 
-import com.google.i18n.phonenumbers.AsYouTypeFormatter;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
-
-import android.telephony.PhoneNumberUtils;
 import android.text.Editable;
 import android.text.Selection;
+import android.text.TextUtils;
 import android.text.TextWatcher;
 
 import java.util.Locale;
@@ -43,6 +40,8 @@ import java.util.Locale;
  *     <li>added method setCountry(String countryCode) to switch the formatting Locale after constructing</li>
  *     <li>added field mRawPhoneNumber and method getRawPhoneNumber() to keep track of the unformatted number</li>
  *     <li>enhanced logic when to stop formatting (not when deleting the entire string)</li>
+ *     <li>moved the formatting into {@link PhoneNumberReformatter}, which formats digits typed or
+ *     deleted at the end incrementally and keeps the formatters of recently used regions</li>
  * </ul>
  */
 public class PhoneNumberFormattingTextWatcher implements TextWatcher {
@@ -62,9 +61,12 @@ public class PhoneNumberFormattingTextWatcher implements TextWatcher {
      */
     boolean mIgnore;
 
-    private AsYouTypeFormatter mFormatter;
+    private final PhoneNumberReformatter mReformatter;
 
-    private String mRawPhoneNumber = "";
+    /**
+     * Receives the duration of every reformat, may be {@code null}.
+     */
+    LatencyHistogram mLatency;
 
     /**
      * The formatting is based on the current system locale and future locale changes
@@ -81,8 +83,7 @@ public class PhoneNumberFormattingTextWatcher implements TextWatcher {
      * where the phone number is being entered.
      */
     PhoneNumberFormattingTextWatcher(String countryCode) {
-        if (countryCode == null) throw new IllegalArgumentException();
-        mFormatter = PhoneNumberUtil.getInstance().getAsYouTypeFormatter(countryCode);
+        mReformatter = new PhoneNumberReformatter(countryCode);
     }
 
     /**
@@ -92,8 +93,7 @@ public class PhoneNumberFormattingTextWatcher implements TextWatcher {
      * where the phone number is being entered.
      */
     void setCountry(String countryCode) {
-        if (countryCode == null) throw new IllegalArgumentException();
-        mFormatter = PhoneNumberUtil.getInstance().getAsYouTypeFormatter(countryCode.toUpperCase());
+        mReformatter.setCountry(countryCode);
     }
 
     /**
@@ -103,7 +103,7 @@ public class PhoneNumberFormattingTextWatcher implements TextWatcher {
      * @return the raw phone number without separators
      */
     String getRawPhoneNumber() {
-        return mStopFormatting ? null : mRawPhoneNumber;
+        return mStopFormatting ? null : mReformatter.getRawPhoneNumber();
     }
 
     @Override
@@ -142,68 +142,31 @@ public class PhoneNumberFormattingTextWatcher implements TextWatcher {
             // Ignore the change caused by s.replace().
             return;
         }
-        String formatted = reformat(s, Selection.getSelectionEnd(s));
+        long span = PhoneFieldTrace.beginTimed(PhoneFieldTrace.FORMAT);
+        String formatted = mReformatter.reformat(s, Selection.getSelectionEnd(s));
         if (formatted != null) {
-            int rememberedPos = mFormatter.getRememberedPosition();
+            int rememberedPos = mReformatter.getRememberedPosition();
             mSelfChange = true;
             s.replace(0, s.length(), formatted, 0, formatted.length());
             // The text could be changed by other TextWatcher after we changed it. If we found the
             // text is not the one we were expecting, just give up calling setSelection().
-            if (formatted.equals(s.toString())) {
+            if (TextUtils.equals(formatted, s)) {
                 Selection.setSelection(s, rememberedPos);
             }
             mSelfChange = false;
         }
-    }
-
-    /**
-     * Generate the formatted number by ignoring all non-dialable chars and stick the cursor to the
-     * nearest dialable char to the left. For instance, if the number is  (650) 123-45678 and '4' is
-     * removed then the cursor should be behind '3' instead of '-'.
-     */
-    private String reformat(CharSequence s, int cursor) {
-        // The index of char to the leftward of the cursor.
-        int curIndex = cursor - 1;
-        String formatted = null;
-        mFormatter.clear();
-        mRawPhoneNumber = "";
-        char lastNonSeparator = 0;
-        boolean hasCursor = false;
-        int len = s.length();
-        for (int i = 0; i < len; i++) {
-            char c = s.charAt(i);
-            if (PhoneNumberUtils.isNonSeparator(c)) {
-                if (lastNonSeparator != 0) {
-                    formatted = getFormattedNumber(lastNonSeparator, hasCursor);
-                    hasCursor = false;
-                }
-                lastNonSeparator = c;
-                mRawPhoneNumber += c;
-            }
-            if (i == curIndex) {
-                hasCursor = true;
-            }
-        }
-        if (lastNonSeparator != 0) {
-            formatted = getFormattedNumber(lastNonSeparator, hasCursor);
-        }
-        return formatted;
-    }
-
-    private String getFormattedNumber(char lastNonSeparator, boolean hasCursor) {
-        return hasCursor ? mFormatter.inputDigitAndRememberPosition(lastNonSeparator)
-                : mFormatter.inputDigit(lastNonSeparator);
+        PhoneFieldTrace.end(PhoneFieldTrace.FORMAT, span, mLatency);
     }
 
     private void stopFormatting() {
         mStopFormatting = true;
-        mFormatter.clear();
+        mReformatter.clear();
     }
 
     private boolean hasSeparator(final CharSequence s, final int start, final int count) {
         for (int i = start; i < start + count; i++) {
             char c = s.charAt(i);
-            if (!PhoneNumberUtils.isNonSeparator(c)) {
+            if (!PhoneNumberReformatter.isNonSeparator(c)) {
                 return true;
             }
         }
@@ -0,0 +1,295 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * Normalizes raw phone numbers to E.164 with the same rules a {@link PhoneField} applies to its
+ * input, without any Android dependency, e.g. to clean up large contact exports on a server.
+ * <p>
+ * A leading 00 is replaced by +, the number is parsed with the default region like the field does
+ * before a country was detected, and the country is detected with {@link Countries#resolve}.
+ * Batches are split into chunks that are normalized in parallel on a {@link ForkJoinPool}, the
+ * results keep the order of the input.
+ */
+@RequiresApi(21)
+public final class PhoneNumberNormalizer {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final PhoneNumberUtil mPhoneUtil = PhoneNumberUtil.getInstance();
+
+    private final String mDefaultRegion;
+
+    private final ForkJoinPool mPool;
+
+    /**
+     * Instantiates a normalizer running on a pool shared by all normalizers created this way, with
+     * one thread per core.
+     *
+     * @param defaultRegion the ISO 3166-1 alpha-2 code numbers without international prefix belong to
+     */
+    public PhoneNumberNormalizer(String defaultRegion) {
+        this(defaultRegion, DefaultPool.INSTANCE);
+    }
+
+    /**
+     * Instantiates a normalizer.
+     *
+     * @param defaultRegion the ISO 3166-1 alpha-2 code numbers without international prefix belong to
+     * @param pool          the pool batches are normalized on
+     */
+    public PhoneNumberNormalizer(String defaultRegion, ForkJoinPool pool) {
+        if (defaultRegion == null || pool == null)
+            throw new IllegalArgumentException();
+        mDefaultRegion = defaultRegion.toUpperCase();
+        mPool = pool;
+    }
+
+    /**
+     * Normalizes a single number on the calling thread.
+     *
+     * @param rawNumber the number as entered, may contain any separators
+     * @return the result, never {@code null}
+     */
+    public Result normalize(CharSequence rawNumber) {
+        String input = rawNumber == null ? "" : rawNumber.toString();
+        String number = input;
+        if (number.startsWith("00"))
+            number = "+" + number.substring(2);
+        try {
+            Phonenumber.PhoneNumber parsed = mPhoneUtil.parseAndKeepRawInput(number, mDefaultRegion);
+            return new Result(input, Countries.resolve(parsed), mPhoneUtil.isValidNumber(parsed),
+                    mPhoneUtil.format(parsed, PhoneNumberUtil.PhoneNumberFormat.E164), getNationalNumber(parsed));
+        } catch (NumberParseException e) {
+            return new Result(input, null, false, null, null);
+        }
+    }
+
+    private static String getNationalNumber(Phonenumber.PhoneNumber number) {
+        //same as PhoneField when pasting, the zeros default to one which stands for the trunk prefix
+        StringBuilder national = new StringBuilder();
+        for (int i = 0; i < number.getNumberOfLeadingZeros(); i++)
+            national.append('0');
+        return national.append(number.getNationalNumber()).toString();
+    }
+
+    /**
+     * Normalizes all numbers in parallel. Chunks are handed to the pool while the input is still
+     * being read, so slow sources like files overlap with the normalization.
+     *
+     * @param rawNumbers the numbers as entered
+     * @return the results in the order of the input
+     */
+    public Batch normalizeAll(Iterator<? extends CharSequence> rawNumbers) {
+        long start = System.nanoTime();
+        List<ForkJoinTask<Result[]>> chunks = new ArrayList<>();
+        int count = 0;
+        while (rawNumbers.hasNext()) {
+            CharSequence[] chunk = new CharSequence[CHUNK_SIZE];
+            int size = 0;
+            while (size < CHUNK_SIZE && rawNumbers.hasNext())
+                chunk[size++] = rawNumbers.next();
+            chunks.add(mPool.submit(new Chunk(chunk, size)));
+            count += size;
+        }
+
+        Result[] results = new Result[count];
+        int offset = 0;
+        for (ForkJoinTask<Result[]> chunk : chunks) {
+            Result[] part = chunk.join();
+            System.arraycopy(part, 0, results, offset, part.length);
+            offset += part.length;
+        }
+        return new Batch(Collections.unmodifiableList(Arrays.asList(results)),
+                System.nanoTime() - start, mPool.getParallelism());
+    }
+
+    /**
+     * Normalizes all numbers in parallel.
+     *
+     * @param rawNumbers the numbers as entered
+     * @return the results in the order of the input
+     * @see #normalizeAll(Iterator)
+     */
+    public Batch normalizeAll(Iterable<? extends CharSequence> rawNumbers) {
+        return normalizeAll(rawNumbers.iterator());
+    }
+
+    /**
+     * Holds the pool of the one-argument constructor, which is only created when first used.
+     * {@link ForkJoinPool#commonPool()} is not an option, Android only has it from API 24 on.
+     */
+    private static final class DefaultPool {
+
+        static final ForkJoinPool INSTANCE = new ForkJoinPool();
+    }
+
+    private final class Chunk extends RecursiveTask<Result[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] mRawNumbers;
+
+        private final int mSize;
+
+        Chunk(CharSequence[] rawNumbers, int size) {
+            mRawNumbers = rawNumbers;
+            mSize = size;
+        }
+
+        @Override
+        protected Result[] compute() {
+            Result[] results = new Result[mSize];
+            for (int i = 0; i < mSize; i++)
+                results[i] = normalize(mRawNumbers[i]);
+            return results;
+        }
+    }
+
+    /**
+     * A normalized phone number.
+     */
+    public static final class Result {
+
+        private final String mInput;
+
+        private final Country mCountry;
+
+        private final boolean mValid;
+
+        private final String mE164;
+
+        private final String mNationalNumber;
+
+        Result(String input, Country country, boolean valid, String e164, String nationalNumber) {
+            mInput = input;
+            mCountry = country;
+            mValid = valid;
+            mE164 = e164;
+            mNationalNumber = nationalNumber;
+        }
+
+        /**
+         * Gets the number as it was passed to the normalizer.
+         *
+         * @return the raw input
+         */
+        public String getInput() {
+            return mInput;
+        }
+
+        /**
+         * Gets the country a {@link PhoneField} would select for the number.
+         *
+         * @return the country or {@code null} if the number could not be parsed or matched
+         */
+        public Country getCountry() {
+            return mCountry;
+        }
+
+        /**
+         * Gets the region code of the detected country.
+         *
+         * @return the upper case ISO 3166-1 alpha-2 code or {@code null} if no country was detected
+         */
+        public String getRegionCode() {
+            return mCountry == null ? null : mCountry.getRegionCode();
+        }
+
+        /**
+         * Checks whether the number is valid according to libphonenumber.
+         *
+         * @return whether the number is of a valid pattern
+         */
+        public boolean isValid() {
+            return mValid;
+        }
+
+        /**
+         * Gets the number formatted as E.164. Numbers that can be parsed but are not valid are
+         * formatted as well, check {@link #isValid()} before using it.
+         *
+         * @return the number or {@code null} if it could not be parsed
+         */
+        public String getE164() {
+            return mE164;
+        }
+
+        /**
+         * Gets the national significant number including leading zeros, the way a
+         * {@link PhoneField} shows a pasted number when autoFill is off.
+         *
+         * @return the national number or {@code null} if it could not be parsed
+         */
+        public String getNationalNumber() {
+            return mNationalNumber;
+        }
+    }
+
+    /**
+     * The results of a batch and how long it took.
+     */
+    public static final class Batch {
+
+        private final List<Result> mResults;
+
+        private final long mElapsedNanos;
+
+        private final int mParallelism;
+
+        Batch(List<Result> results, long elapsedNanos, int parallelism) {
+            mResults = results;
+            mElapsedNanos = elapsedNanos;
+            mParallelism = parallelism;
+        }
+
+        /**
+         * Gets the results in the order of the input.
+         *
+         * @return an unmodifiable list of results
+         */
+        public List<Result> getResults() {
+            return mResults;
+        }
+
+        /**
+         * Gets the wall clock time from reading the first number to the last result.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        /**
+         * Gets the number of threads of the pool the batch ran on.
+         *
+         * @return the parallelism of the pool
+         */
+        public int getParallelism() {
+            return mParallelism;
+        }
+
+        /**
+         * Gets the throughput of the batch across all threads.
+         *
+         * @return the normalized numbers per second
+         */
+        public double getRecordsPerSecond() {
+            return mElapsedNanos == 0 ? 0 : mResults.size() * 1e9 / mElapsedNanos;
+        }
+    }
+}
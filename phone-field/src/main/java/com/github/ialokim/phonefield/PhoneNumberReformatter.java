@@ -0,0 +1,233 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Formatting state behind {@link PhoneNumberFormattingTextWatcher}, kept free of Android classes so
+ * that it also runs on a plain JVM, e.g. in the benchmarks.
+ * <p>
+ * Digits appended to or deleted from the end are formatted incrementally, the whole number is only
+ * fed to the {@link AsYouTypeFormatter} again for edits in the middle. Formatters of recently used
+ * regions are kept and reset instead of being recreated on every country switch.
+ */
+final class PhoneNumberReformatter {
+
+    /**
+     * Number of formatters kept for switching back and forth between countries.
+     */
+    private static final int MAX_CACHED_FORMATTERS = 4;
+
+    private AsYouTypeFormatter mFormatter;
+
+    private String mRegion;
+
+    /**
+     * Formatters by region, least recently used first.
+     */
+    private final Map<String, AsYouTypeFormatter> mFormatters =
+            new LinkedHashMap<String, AsYouTypeFormatter>(MAX_CACHED_FORMATTERS + 1, 1f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AsYouTypeFormatter> eldest) {
+                    return size() > MAX_CACHED_FORMATTERS;
+                }
+            };
+
+    private final StringBuilder mRawPhoneNumber = new StringBuilder();
+
+    /**
+     * Whether {@link #mFormatter} was fed exactly the digits of {@link #mRawPhoneNumber}, so that
+     * the next appended digit can be passed on its own.
+     */
+    private boolean mFormatterInSync;
+
+    /**
+     * The formatted number and remembered position after each digit of {@link #mRawPhoneNumber},
+     * used to step back when digits are deleted at the end. Only the first
+     * {@link #mHistoryLength} entries are valid.
+     */
+    private String[] mHistory = new String[16];
+    private int[] mHistoryPositions = new int[16];
+    private int mHistoryLength;
+
+    private int mRememberedPosition;
+
+    /**
+     * The formatting is based on the given <code>countryCode</code>.
+     *
+     * @param countryCode the ISO 3166-1 two-letter country code that indicates the country/region
+     * where the phone number is being entered.
+     */
+    PhoneNumberReformatter(String countryCode) {
+        if (countryCode == null) throw new IllegalArgumentException();
+        mRegion = countryCode.toUpperCase();
+        mFormatter = PhoneNumberUtil.getInstance().getAsYouTypeFormatter(mRegion);
+        mFormatters.put(mRegion, mFormatter);
+    }
+
+    /**
+     * Set the formatting based on the given <code>countryCode</code>.
+     *
+     * @param countryCode the ISO 3166-1 two-letter country code that indicates the country/region
+     * where the phone number is being entered.
+     */
+    void setCountry(String countryCode) {
+        if (countryCode == null) throw new IllegalArgumentException();
+        // The formatter output only depends on the region and the digits, so the current state
+        // stays valid when the region is selected again.
+        if (countryCode.equalsIgnoreCase(mRegion))
+            return;
+        String region = countryCode.toUpperCase();
+        AsYouTypeFormatter formatter = mFormatters.get(region);
+        if (formatter == null) {
+            formatter = PhoneNumberUtil.getInstance().getAsYouTypeFormatter(region);
+            mFormatters.put(region, formatter);
+        } else {
+            formatter.clear();
+        }
+        mRegion = region;
+        mFormatter = formatter;
+        mFormatterInSync = false;
+        mHistoryLength = 0;
+    }
+
+    /**
+     * Get the unformatted phone number of the last call to {@link #reformat(CharSequence, int)}.
+     *
+     * @return the raw phone number without separators
+     */
+    String getRawPhoneNumber() {
+        return mRawPhoneNumber.toString();
+    }
+
+    /**
+     * Get the cursor position in the number returned by the last call to
+     * {@link #reformat(CharSequence, int)}.
+     *
+     * @return the position behind the digit that was left of the cursor
+     */
+    int getRememberedPosition() {
+        return mRememberedPosition;
+    }
+
+    /**
+     * Generate the formatted number by ignoring all non-dialable chars and stick the cursor to the
+     * nearest dialable char to the left. For instance, if the number is  (650) 123-45678 and '4' is
+     * removed then the cursor should be behind '3' instead of '-'.
+     */
+    String reformat(CharSequence s, int cursor) {
+        int len = s.length();
+        if (cursor == len) {
+            // Compare the digits with the ones formatted last time to detect edits at the end.
+            int rawLength = mRawPhoneNumber.length();
+            int digits = 0;
+            boolean isPrefix = true;
+            char lastNonSeparator = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (isNonSeparator(c)) {
+                    if (digits < rawLength && mRawPhoneNumber.charAt(digits) != c)
+                        isPrefix = false;
+                    digits++;
+                    lastNonSeparator = c;
+                }
+            }
+            if (isPrefix && digits == rawLength + 1 && mFormatterInSync) {
+                mRawPhoneNumber.append(lastNonSeparator);
+                return formatNextDigit(lastNonSeparator, true);
+            }
+            if (isPrefix && digits > 0 && digits < rawLength && digits <= mHistoryLength) {
+                // AsYouTypeFormatter cannot remove digits, the formatter is fed again on the next append
+                mRawPhoneNumber.setLength(digits);
+                mHistoryLength = digits;
+                mFormatterInSync = false;
+                mRememberedPosition = mHistoryPositions[digits - 1];
+                return mHistory[digits - 1];
+            }
+        }
+        return reformatAll(s, cursor);
+    }
+
+    /**
+     * Feeds the whole number to the formatter again.
+     */
+    private String reformatAll(CharSequence s, int cursor) {
+        // The index of char to the leftward of the cursor.
+        int curIndex = cursor - 1;
+        // With the cursor at the end, every digit may remember its position as only the last one
+        // counts, which gives the history for deleting at the end for free.
+        boolean cursorAtEnd = cursor == s.length();
+        String formatted = null;
+        mFormatter.clear();
+        mRawPhoneNumber.setLength(0);
+        mHistoryLength = 0;
+        char lastNonSeparator = 0;
+        boolean hasCursor = false;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (isNonSeparator(c)) {
+                if (lastNonSeparator != 0) {
+                    formatted = formatNextDigit(lastNonSeparator, hasCursor || cursorAtEnd);
+                    hasCursor = false;
+                }
+                lastNonSeparator = c;
+                mRawPhoneNumber.append(c);
+            }
+            if (i == curIndex) {
+                hasCursor = true;
+            }
+        }
+        if (lastNonSeparator != 0) {
+            formatted = formatNextDigit(lastNonSeparator, hasCursor || cursorAtEnd);
+        }
+        mRememberedPosition = mFormatter.getRememberedPosition();
+        mFormatterInSync = true;
+        return formatted;
+    }
+
+    /**
+     * Passes the next digit to the formatter, the digit must already be part of
+     * {@link #mRawPhoneNumber}.
+     */
+    private String formatNextDigit(char nonSeparator, boolean rememberPosition) {
+        if (!rememberPosition)
+            return mFormatter.inputDigit(nonSeparator);
+        String formatted = mFormatter.inputDigitAndRememberPosition(nonSeparator);
+        mRememberedPosition = mFormatter.getRememberedPosition();
+        // Only a formatter that remembered every digit yields the history for deleting at the end.
+        int digits = mRawPhoneNumber.length();
+        if (mHistoryLength == digits - 1) {
+            if (digits > mHistory.length) {
+                mHistory = Arrays.copyOf(mHistory, digits * 2);
+                mHistoryPositions = Arrays.copyOf(mHistoryPositions, digits * 2);
+            }
+            mHistory[digits - 1] = formatted;
+            mHistoryPositions[digits - 1] = mRememberedPosition;
+            mHistoryLength = digits;
+        }
+        return formatted;
+    }
+
+    /**
+     * Clears the formatter, the next call to {@link #reformat(CharSequence, int)} starts over.
+     */
+    void clear() {
+        mFormatter.clear();
+        mFormatterInSync = false;
+        mHistoryLength = 0;
+    }
+
+    /**
+     * Same check as {@link android.telephony.PhoneNumberUtils#isNonSeparator(char)}, which is not
+     * available outside of an Android runtime.
+     */
+    static boolean isNonSeparator(char c) {
+        return (c >= '0' && c <= '9') || c == '*' || c == '#' || c == '+'
+                || c == 'N' || c == ';' || c == ',';
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.ialokim.phonefield;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link CountryResolver} picks the same country as the first-match scan over the
+ * countries of a dial code it replaced, for every dial code of the generated table.
+ */
+public class CountryResolverTest {
+
+    private static final long SEED = 0x5048_4f4e_45L;
+
+    /**
+     * Every digit string up to this length is resolved for each dial code shared by several
+     * countries, longer area codes are covered through their own prefixes.
+     */
+    private static final int EXHAUSTIVE_LENGTH = 4;
+
+    private static final int RANDOM_NUMBERS = 2000;
+
+    private static final int MAX_NATIONAL_LENGTH = 17;
+
+    private final Random mRandom = new Random(SEED);
+
+    @Test
+    public void resolvesLikeLinearScan() {
+        int checked = 0;
+        for (int dialCode = 0; dialCode <= 999; dialCode++) {
+            List<Country> countries = Countries.get(dialCode);
+            if (countries.isEmpty())
+                continue;
+
+            if (countries.size() > 1) {
+                StringBuilder national = new StringBuilder();
+                for (int length = 1; length <= EXHAUSTIVE_LENGTH; length++)
+                    checked += checkAll(dialCode, national, length);
+            }
+            for (Country country : countries) {
+                for (int areaCode : country.getAreaCodes()) {
+                    String digits = String.valueOf(areaCode).substring(1);
+                    for (int length = 1; length <= digits.length(); length++)
+                        checked += check(dialCode, digits.substring(0, length));
+                    for (int digit = 0; digit <= 9; digit++)
+                        checked += check(dialCode, digits + digit);
+                    checked += check(dialCode, digits + randomDigits(MAX_NATIONAL_LENGTH - digits.length()));
+                }
+            }
+            for (int i = 0; i < RANDOM_NUMBERS; i++)
+                checked += check(dialCode, randomDigits(MAX_NATIONAL_LENGTH));
+        }
+        assertTrue("nothing was checked, is the country table empty?", checked > 0);
+    }
+
+    @Test
+    public void longNumbersWithoutLeadingZerosMatchContainsNumber() {
+        for (Country country : Countries.getAll()) {
+            for (int i = 0; i < 200; i++) {
+                String national = randomDigits(MAX_NATIONAL_LENGTH);
+                if (national.charAt(0) == '0')
+                    continue;
+                assertEquals(national, contains(country, national), country.containsNumber(Long.parseLong(national)));
+            }
+        }
+    }
+
+    @Test
+    public void unknownDialCodes() {
+        assertNull(Countries.resolve(0, 123456));
+        assertNull(Countries.resolve(-1, 123456));
+        assertNull(Countries.resolve(1000, 123456));
+    }
+
+    /**
+     * Checks every digit string of a length that starts with the given digits.
+     */
+    private int checkAll(int dialCode, StringBuilder national, int length) {
+        if (national.length() == length)
+            return check(dialCode, national.toString());
+        int checked = 0;
+        for (char digit = '0'; digit <= '9'; digit++) {
+            national.append(digit);
+            checked += checkAll(dialCode, national, length);
+            national.setLength(national.length() - 1);
+        }
+        return checked;
+    }
+
+    private static int check(int dialCode, String national) {
+        //libphonenumber keeps the leading zeros apart from the number, an all zero number keeps one
+        int leadingZeros = 0;
+        while (leadingZeros < national.length() - 1 && national.charAt(leadingZeros) == '0')
+            leadingZeros++;
+        long nationalNumber = Long.parseLong(national.substring(leadingZeros));
+
+        Country expected = linearScan(dialCode, national);
+        Country actual = CountryResolver.getInstance().resolve(dialCode, nationalNumber, leadingZeros);
+        if (expected != actual)
+            throw new AssertionError("+" + dialCode + " " + national + ": expected " + code(expected)
+                    + " but was " + code(actual));
+        return 1;
+    }
+
+    /**
+     * The lookup the resolver replaced: the first country, in table order, whose area code starts
+     * the number, or which has priority while none of its area codes can be checked.
+     */
+    private static Country linearScan(int dialCode, String national) {
+        for (Country country : Countries.get(dialCode)) {
+            if (contains(country, national))
+                return country;
+        }
+        return null;
+    }
+
+    private static boolean contains(Country country, String national) {
+        int minLength = country.getMinAreaCodeLength();
+        if (minLength > 0 && national.length() >= minLength) {
+            for (int areaCode : country.getAreaCodes()) {
+                if (national.startsWith(String.valueOf(areaCode).substring(1)))
+                    return true;
+            }
+            return false;
+        }
+        return country.hasPriority();
+    }
+
+    private String randomDigits(int maxLength) {
+        int length = 1 + mRandom.nextInt(Math.max(1, maxLength));
+        StringBuilder digits = new StringBuilder(length);
+        //a few numbers keep the trunk zeros of e.g. Italy
+        if (mRandom.nextInt(8) == 0)
+            digits.append('0');
+        while (digits.length() < length)
+            digits.append((char) ('0' + mRandom.nextInt(10)));
+        return digits.toString();
+    }
+
+    private static String code(Country country) {
+        return country == null ? "null" : country.getCode();
+    }
+}
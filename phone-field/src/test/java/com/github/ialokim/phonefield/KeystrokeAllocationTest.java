@@ -0,0 +1,202 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Guards the bytes allocated by one digit typed at the end of a number, the path a {@link PhoneField}
+ * runs on every keystroke with autoFormat on and synchronous parsing: the
+ * {@link PhoneNumberReformatter} formats the text, then the {@link KeystrokeParser} of the field
+ * parses it in place and resolves its country.
+ * <p>
+ * Most of these bytes are allocated inside libphonenumber and depend on its version and the JDK.
+ * So every keystroke is also typed into a bare {@link AsYouTypeFormatter} and parsed with
+ * {@code PhoneNumberUtil.parse(CharSequence, String, PhoneNumber)}, and only what the field
+ * allocates on top of that baseline is checked. Copying the text adds about 70 bytes, a regex
+ * replace on it about 700.
+ */
+public class KeystrokeAllocationTest {
+
+    /**
+     * Numbers as typed in their region, national formats and one in E.164.
+     */
+    private static final String[][] CORPUS = {
+            {"DE", "015112345678"},
+            {"US", "2015550123"},
+            {"GB", "07400123456"},
+            {"FR", "0612345678"},
+            {"IN", "9876543210"},
+            {"BR", "11961234567"},
+            {"DE", "+4915112345678"},
+    };
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final int MEASURED_ROUNDS = 50;
+
+    /**
+     * Upper bound of the average bytes a keystroke may allocate on top of the baseline. The field
+     * code allocates nothing itself, on JDK 17 both runs allocate the same bytes. The margin leaves
+     * room for a JDK that measures the two runs a little apart, but not for a copy of the text.
+     */
+    private static final long MAX_OVERHEAD_BYTES = 16;
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+
+    private final PhoneNumberUtil mPhoneUtil = PhoneNumberUtil.getInstance();
+
+    private final Phonenumber.PhoneNumber mBaselineNumber = new Phonenumber.PhoneNumber();
+
+    /**
+     * The text of the field, rewritten with the formatted number after every keystroke.
+     */
+    private final StringBuilder mText = new StringBuilder(32);
+
+    /**
+     * Bytes allocated by the measured keystrokes of the field and of the baseline.
+     */
+    private long mAllocated;
+    private long mBaseline;
+    private long mKeystrokes;
+
+    @Before
+    public void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void formatting() {
+        measure(false);
+        assertOverhead("formatting");
+    }
+
+    @Test
+    public void formattingAndParsing() {
+        measure(true);
+        assertOverhead("a keystroke");
+    }
+
+    /**
+     * Below Android 10 every span asks the hidden {@code Trace.isTagEnabled(long)} through
+     * reflection whether it is traced, which must not allocate either.
+     */
+    @Test
+    public void tagCheckBelowApi29() {
+        PhoneFieldTrace.TagCheck check = new PhoneFieldTrace.TagCheck(FakeTrace.class);
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            FakeTrace.sEnabled = round % 2 == 0;
+            long start = mThreadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 1000; i++) {
+                if (check.isEnabled() != FakeTrace.sEnabled)
+                    fail("the check did not return the state of the tag");
+            }
+            long end = mThreadBean.getThreadAllocatedBytes(threadId);
+            if (round >= WARMUP_ROUNDS)
+                allocated += end - start;
+        }
+        assertEquals("the tag check allocated", 0, allocated);
+    }
+
+    private void assertOverhead(String what) {
+        long overhead = (mAllocated - mBaseline) / mKeystrokes;
+        assertTrue(what + " allocated " + overhead + " bytes on top of libphonenumber, "
+                + mAllocated / mKeystrokes + " instead of " + mBaseline / mKeystrokes
+                + " per keystroke, at most " + MAX_OVERHEAD_BYTES + " expected", overhead <= MAX_OVERHEAD_BYTES);
+    }
+
+    /**
+     * Types the corpus into the field code and the baseline by turns, the first rounds load the
+     * metadata and fill the caches and are dropped.
+     */
+    private void measure(boolean parse) {
+        PhoneNumberReformatter[] reformatters = new PhoneNumberReformatter[CORPUS.length];
+        AsYouTypeFormatter[] formatters = new AsYouTypeFormatter[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++) {
+            reformatters[i] = new PhoneNumberReformatter(CORPUS[i][0]);
+            formatters[i] = mPhoneUtil.getAsYouTypeFormatter(CORPUS[i][0]);
+        }
+        KeystrokeParser parser = new KeystrokeParser(null);
+
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            boolean measured = round >= WARMUP_ROUNDS;
+            for (int i = 0; i < CORPUS.length; i++) {
+                PhoneNumberReformatter reformatter = reformatters[i];
+                AsYouTypeFormatter formatter = formatters[i];
+                String region = CORPUS[i][0];
+                String number = CORPUS[i][1];
+                reformatter.clear();
+                formatter.clear();
+                mText.setLength(0);
+                for (int digit = 0; digit < number.length(); digit++) {
+                    char c = number.charAt(digit);
+
+                    long start = mThreadBean.getThreadAllocatedBytes(threadId);
+                    mText.append(c);
+                    String formatted = reformatter.reformat(mText, mText.length());
+                    if (formatted != null) {
+                        mText.setLength(0);
+                        mText.append(formatted);
+                    }
+                    if (parse) {
+                        parser.resolve(mText, region);
+                        KeystrokeParser.startsWithInternationalPrefix(mText);
+                    }
+                    long end = mThreadBean.getThreadAllocatedBytes(threadId);
+
+                    long baselineStart = mThreadBean.getThreadAllocatedBytes(threadId);
+                    formatter.inputDigitAndRememberPosition(c);
+                    if (parse)
+                        parseBaseline(region);
+                    long baselineEnd = mThreadBean.getThreadAllocatedBytes(threadId);
+
+                    if (measured) {
+                        mAllocated += end - start;
+                        mBaseline += baselineEnd - baselineStart;
+                        mKeystrokes++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void parseBaseline(String region) {
+        try {
+            mBaselineNumber.clear();
+            mPhoneUtil.parse(mText, region, mBaselineNumber);
+        } catch (NumberParseException ignored) {
+            //incomplete input while typing
+        }
+    }
+
+    /**
+     * Stands in for {@code android.os.Trace} below Android 10.
+     */
+    public static final class FakeTrace {
+
+        public static final long TRACE_TAG_APP = 1L << 12;
+
+        static boolean sEnabled;
+
+        public static boolean isTagEnabled(long traceTag) {
+            return traceTag == TRACE_TAG_APP && sEnabled;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the rules {@link PhoneNumberNormalizer} shares with {@link PhoneField}, and that batches
+ * spanning several chunks keep the order of their input.
+ */
+public class PhoneNumberNormalizerTest {
+
+    private static final long SEED = 0x5048_4f4e_45L;
+
+    /**
+     * Spans several chunks of the normalizer and ends in a partial one.
+     */
+    private static final int BATCH_SIZE = 5000;
+
+    private final ForkJoinPool mPool = new ForkJoinPool(4);
+
+    private final PhoneNumberNormalizer mNormalizer = new PhoneNumberNormalizer("US", mPool);
+
+    @After
+    public void tearDown() {
+        mPool.shutdown();
+    }
+
+    @Test
+    public void internationalPrefix() {
+        PhoneNumberNormalizer.Result result = mNormalizer.normalize("0049 151 12345678");
+        assertEquals("0049 151 12345678", result.getInput());
+        assertEquals("+4915112345678", result.getE164());
+        assertEquals("DE", result.getRegionCode());
+        assertTrue(result.isValid());
+        assertEquals("015112345678", result.getNationalNumber());
+    }
+
+    @Test
+    public void italianLeadingZero() {
+        PhoneNumberNormalizer.Result international = mNormalizer.normalize("+39 02 3661 8300");
+        assertEquals("+390236618300", international.getE164());
+        assertEquals("IT", international.getRegionCode());
+        assertEquals("0236618300", international.getNationalNumber());
+
+        PhoneNumberNormalizer.Result national = new PhoneNumberNormalizer("it", mPool).normalize("02 3661 8300");
+        assertEquals("+390236618300", national.getE164());
+        assertEquals("IT", national.getRegionCode());
+        assertEquals("0236618300", national.getNationalNumber());
+    }
+
+    @Test
+    public void sharedDialCodes() throws NumberParseException {
+        String[][] numbers = {
+                {"+1 201 555 0123", "US"},
+                {"+1 416 555 0123", "CA"},
+                {"+1 876 555 0123", "JM"},
+                {"+7 912 123 4567", "RU"},
+                {"+7 701 123 4567", "KZ"},
+                {"+44 20 7183 8750", "GB"},
+                {"+44 1481 712345", "GG"},
+                {"+47 22 12 34 56", "NO"},
+                {"+47 79 12 34 56", "SJ"},
+        };
+        PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+        for (String[] number : numbers) {
+            PhoneNumberNormalizer.Result result = mNormalizer.normalize(number[0]);
+            assertEquals(number[0], number[1], result.getRegionCode());
+            assertSame(number[0], Countries.resolve(util.parse(number[0], "US")), result.getCountry());
+        }
+    }
+
+    @Test
+    public void invalidInput() {
+        for (String input : new String[]{"", "abc", "00", "+49 1", "+999 123456"}) {
+            PhoneNumberNormalizer.Result result = mNormalizer.normalize(input);
+            assertEquals(input, input, result.getInput());
+            assertNull(input, result.getE164());
+            assertNull(input, result.getCountry());
+            assertNull(input, result.getNationalNumber());
+            assertFalse(input, result.isValid());
+        }
+        assertEquals("", mNormalizer.normalize(null).getInput());
+
+        //numbers that parse but match no pattern are formatted and marked invalid
+        PhoneNumberNormalizer.Result tooShort = mNormalizer.normalize("+49 151 1");
+        assertEquals("+491511", tooShort.getE164());
+        assertFalse(tooShort.isValid());
+    }
+
+    @Test
+    public void batchKeepsOrderAcrossChunks() {
+        Random random = new Random(SEED);
+        String[] prefixes = {"+49 151 ", "0049 30 ", "+1 201 ", "+1 416 ", "+39 02 ", "0", "abc", ""};
+        List<String> inputs = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            inputs.add(prefixes[random.nextInt(prefixes.length)] + (1000000 + i));
+
+        PhoneNumberNormalizer.Batch batch = mNormalizer.normalizeAll(inputs);
+        assertEquals(BATCH_SIZE, batch.getResults().size());
+        assertEquals(4, batch.getParallelism());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            PhoneNumberNormalizer.Result result = batch.getResults().get(i);
+            PhoneNumberNormalizer.Result expected = mNormalizer.normalize(inputs.get(i));
+            assertEquals(inputs.get(i), result.getInput());
+            assertEquals(inputs.get(i), expected.getE164(), result.getE164());
+            assertSame(inputs.get(i), expected.getCountry(), result.getCountry());
+        }
+    }
+}
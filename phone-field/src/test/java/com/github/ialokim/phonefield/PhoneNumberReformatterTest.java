@@ -0,0 +1,251 @@
+package com.github.ialokim.phonefield;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the incremental {@link PhoneNumberReformatter} formats exactly like the watcher it
+ * replaced, which cleared the {@link AsYouTypeFormatter} and fed it the whole text again on every
+ * change.
+ * <p>
+ * Every step edits the text the way a keyboard does and writes the result back like
+ * {@link PhoneNumberFormattingTextWatcher}, then compares the formatted text, the cursor and the
+ * raw number with a replay on a new formatter. All numbers go through one reformatter, so region
+ * switches also cycle through its cache of recent formatters.
+ */
+public class PhoneNumberReformatterTest {
+
+    private static final long SEED = 0x5048_4f4e_45L;
+
+    /**
+     * Numbers as typed in their region, with trunk prefixes, the Italian leading zero, numbers in
+     * international format and one with the 00 prefix. There are more regions than the reformatter
+     * keeps formatters for.
+     */
+    private static final String[][] CORPUS = {
+            {"DE", "015112345678"},
+            {"US", "2015550123"},
+            {"GB", "07400123456"},
+            {"FR", "0612345678"},
+            {"IN", "9876543210"},
+            {"BR", "11961234567"},
+            {"IT", "0236618300"},
+            {"JP", "09012345678"},
+            {"DE", "+4915112345678"},
+            {"US", "+442071838750"},
+            {"AU", "0412345678"},
+            {"CH", "0041446681800"},
+            {"CN", "13123456789"},
+            {"US", "16502530000"},
+            {"GB", "*#06#"},
+    };
+
+    private final PhoneNumberUtil mUtil = PhoneNumberUtil.getInstance();
+
+    private final Random mRandom = new Random(SEED);
+
+    private PhoneNumberReformatter mReformatter;
+
+    /**
+     * The text of the field and its cursor.
+     */
+    private final StringBuilder mText = new StringBuilder();
+    private int mCursor;
+
+    private String mRegion;
+
+    @Before
+    public void setUp() {
+        mRegion = "DE";
+        mReformatter = new PhoneNumberReformatter(mRegion);
+    }
+
+    @Test
+    public void typeAndDeleteAtTheEnd() {
+        for (int round = 0; round < 3; round++) {
+            for (String[] entry : CORPUS) {
+                String number = entry[1];
+                switchRegion(entry[0]);
+                typeAtEnd(number);
+                //correcting the last digits types on top of a formatter that saw more digits
+                int keep = number.length() / 2;
+                while (digitCount() > keep)
+                    deleteLastDigit();
+                typeAtEnd(number.substring(keep));
+                while (digitCount() > 0)
+                    deleteLastDigit();
+            }
+        }
+    }
+
+    @Test
+    public void editInTheMiddle() {
+        for (int round = 0; round < 3; round++) {
+            for (String[] entry : CORPUS) {
+                switchRegion(entry[0]);
+                typeAtEnd(entry[1]);
+                for (int edit = 0; edit < 20; edit++) {
+                    int digits = digitCount();
+                    if (digits > 1 && mRandom.nextBoolean()) {
+                        deleteDigit(mRandom.nextInt(digits - 1));
+                    } else {
+                        insertDigit(mRandom.nextInt(Math.max(1, digits)),
+                                (char) ('0' + mRandom.nextInt(10)));
+                    }
+                    //going back to typing at the end must pick up the replayed state
+                    if (mRandom.nextInt(4) == 0)
+                        typeAtEnd(String.valueOf((char) ('0' + mRandom.nextInt(10))));
+                    if (mRandom.nextInt(4) == 0)
+                        deleteLastDigit();
+                }
+                clearText();
+            }
+        }
+    }
+
+    @Test
+    public void switchRegionWhileTyping() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < CORPUS.length; i++) {
+                String number = CORPUS[i][1];
+                switchRegion(CORPUS[i][0]);
+                typeAtEnd(number.substring(0, number.length() / 2));
+                //the field reformats the text for the new country of a detected number
+                switchRegion(CORPUS[(i + 1) % CORPUS.length][0]);
+                mCursor = mText.length();
+                reformat();
+                typeAtEnd(number.substring(number.length() / 2));
+                deleteLastDigit();
+                deleteLastDigit();
+                clearText();
+            }
+        }
+    }
+
+    private void switchRegion(String region) {
+        mRegion = region;
+        mReformatter.setCountry(region);
+    }
+
+    private void typeAtEnd(String digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            mText.append(digits.charAt(i));
+            mCursor = mText.length();
+            reformat();
+        }
+    }
+
+    /**
+     * Deletes the last digit with the cursor behind it, separators typed after it go with it, the
+     * watcher stops formatting when a separator alone is deleted.
+     */
+    private void deleteLastDigit() {
+        int index = digitIndex(digitCount() - 1);
+        mText.setLength(index);
+        mCursor = index;
+        reformat();
+    }
+
+    private void deleteDigit(int digit) {
+        int index = digitIndex(digit);
+        mText.deleteCharAt(index);
+        mCursor = index;
+        reformat();
+    }
+
+    private void insertDigit(int digit, char c) {
+        int index = digitIndex(digit);
+        mText.insert(index, c);
+        mCursor = index + 1;
+        reformat();
+    }
+
+    private void clearText() {
+        mText.setLength(0);
+        mCursor = 0;
+        reformat();
+    }
+
+    /**
+     * Reformats the text like the watcher does and checks the result against a full replay.
+     */
+    private void reformat() {
+        String text = mText.toString();
+        int cursor = mCursor;
+
+        AsYouTypeFormatter reference = mUtil.getAsYouTypeFormatter(mRegion);
+        StringBuilder rawNumber = new StringBuilder();
+        String expected = replay(reference, text, cursor, rawNumber);
+
+        String formatted = mReformatter.reformat(mText, cursor);
+        String step = mRegion + " \"" + text + "\" cursor " + cursor;
+        assertEquals(step, expected, formatted);
+        assertEquals(step, rawNumber.toString(), mReformatter.getRawPhoneNumber());
+        if (formatted != null) {
+            assertEquals(step, reference.getRememberedPosition(), mReformatter.getRememberedPosition());
+            mText.setLength(0);
+            mText.append(formatted);
+            mCursor = mReformatter.getRememberedPosition();
+        }
+    }
+
+    /**
+     * The reformat of the former watcher, which fed every non-separator to a cleared formatter and
+     * only remembered the position of the one left of the cursor.
+     */
+    private static String replay(AsYouTypeFormatter formatter, String s, int cursor, StringBuilder rawNumber) {
+        int curIndex = cursor - 1;
+        String formatted = null;
+        formatter.clear();
+        char lastNonSeparator = 0;
+        boolean hasCursor = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (PhoneNumberReformatter.isNonSeparator(c)) {
+                if (lastNonSeparator != 0) {
+                    formatted = input(formatter, lastNonSeparator, hasCursor);
+                    hasCursor = false;
+                }
+                lastNonSeparator = c;
+                rawNumber.append(c);
+            }
+            if (i == curIndex)
+                hasCursor = true;
+        }
+        if (lastNonSeparator != 0)
+            formatted = input(formatter, lastNonSeparator, hasCursor);
+        return formatted;
+    }
+
+    private static String input(AsYouTypeFormatter formatter, char c, boolean hasCursor) {
+        return hasCursor ? formatter.inputDigitAndRememberPosition(c) : formatter.inputDigit(c);
+    }
+
+    private int digitCount() {
+        int digits = 0;
+        for (int i = 0; i < mText.length(); i++) {
+            if (PhoneNumberReformatter.isNonSeparator(mText.charAt(i)))
+                digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Gets the index in the text of a digit, or the length of the text behind the last one.
+     */
+    private int digitIndex(int digit) {
+        int digits = 0;
+        for (int i = 0; i < mText.length(); i++) {
+            if (PhoneNumberReformatter.isNonSeparator(mText.charAt(i)) && digits++ == digit)
+                return i;
+        }
+        return mText.length();
+    }
+}
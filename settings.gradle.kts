@@ -31,4 +31,6 @@ dependencyResolutionManagement {
 rootProject.name = "Open In Whatsapp"
 include(":app")
 include(":phone-field")
+include(":phone-field-benchmarks")
+include(":phone-field-ui-benchmarks")
  
\ No newline at end of file